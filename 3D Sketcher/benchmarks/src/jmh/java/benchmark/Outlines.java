@@ -0,0 +1,202 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.poly2tri.geometry.polygon.PolygonPoint;
+
+/**
+ * Generates closed, simple outlines with any number of points, in counter
+ * clockwise order around the origin. Except for the spiral, every shape is
+ * star shaped around the origin, so it never intersects itself however many
+ * points it has.
+ *
+ * Outlines with up to 10000 points fit within a few units of the origin.
+ * Larger outlines are scaled up so that their points stay as far apart as
+ * at 10000 points; closer together, poly2tri takes neighbouring points to be
+ * collinear and fails.
+ */
+public class Outlines
+{
+	public static final String CIRCLE = "circle";
+	public static final String STAR = "star";
+	public static final String SPIRAL = "spiral";
+	public static final String BLOB = "blob";
+	public static final String TREE = "tree";
+
+	private static final int STAR_ARMS = 5;
+	private static final double SPIRAL_TURNS = 3.0;
+	private static final int TREE_BRANCHES = 4;
+	private static final long SEED = 42;
+	private static final int UNSCALED_POINTS = 10000;
+
+	/**
+	 * @param shape one of circle, star, spiral, blob or tree
+	 */
+	public static List<PolygonPoint> create(String shape, int points)
+	{
+		List<PolygonPoint> outline;
+		if(CIRCLE.equals(shape))
+			outline = circle(points);
+		else if(STAR.equals(shape))
+			outline = star(points, STAR_ARMS);
+		else if(SPIRAL.equals(shape))
+			outline = spiral(points, SPIRAL_TURNS);
+		else if(BLOB.equals(shape))
+			outline = blob(points, SEED);
+		else if(TREE.equals(shape))
+			outline = tree(points, TREE_BRANCHES);
+		else
+			throw new IllegalArgumentException("Unknown shape " + shape);
+		return scale(outline, Math.max(1.0, points / (double)UNSCALED_POINTS));
+	}
+
+	public static List<PolygonPoint> scale(List<PolygonPoint> outline, double factor)
+	{
+		if(factor == 1.0)
+			return outline;
+		List<PolygonPoint> scaled = new ArrayList<PolygonPoint>(outline.size());
+		for (PolygonPoint point : outline)
+		{
+			scaled.add(new PolygonPoint(factor * point.getX(), factor * point.getY()));
+		}
+		return scaled;
+	}
+
+	public static List<PolygonPoint> copy(List<PolygonPoint> outline)
+	{
+		List<PolygonPoint> copy = new ArrayList<PolygonPoint>(outline.size());
+		for (PolygonPoint point : outline)
+		{
+			copy.add(new PolygonPoint(point.getX(), point.getY()));
+		}
+		return copy;
+	}
+
+	public static List<PolygonPoint> circle(int points)
+	{
+		List<PolygonPoint> outline = new ArrayList<PolygonPoint>(points);
+		for (int i = 0; i < points; i++)
+		{
+			outline.add(polar(1.0, angle(i, points)));
+		}
+		return outline;
+	}
+
+	public static List<PolygonPoint> star(int points, int arms)
+	{
+		List<PolygonPoint> outline = new ArrayList<PolygonPoint>(points);
+		for (int i = 0; i < points; i++)
+		{
+			double angle = angle(i, points);
+			outline.add(polar(1.0 + 0.6 * Math.cos(arms * angle), angle));
+		}
+		return outline;
+	}
+
+	/**
+	 * A band that winds around the origin: out along one spiral and back in
+	 * along a second one just inside it. The band is half as wide as the gap
+	 * between its turns.
+	 */
+	public static List<PolygonPoint> spiral(int points, double turns)
+	{
+		double end = 2 * Math.PI * turns;
+		double growth = 0.3 / (2 * Math.PI);
+		double width = 0.15;
+		int outer = points / 2;
+		int inner = points - outer;
+		List<PolygonPoint> outline = new ArrayList<PolygonPoint>(points);
+		for (int i = 0; i < outer; i++)
+		{
+			double angle = end * i / (outer - 1);
+			outline.add(polar(0.2 + width + growth * angle, angle));
+		}
+		for (int i = inner - 1; i >= 0; i--)
+		{
+			double angle = end * i / (inner - 1);
+			outline.add(polar(0.2 + growth * angle, angle));
+		}
+		return outline;
+	}
+
+	/**
+	 * A circle deformed by a few random low harmonics, with radial noise in
+	 * the order of the distance between the points.
+	 */
+	public static List<PolygonPoint> blob(int points, long seed)
+	{
+		Random random = new Random(seed);
+		int harmonics = 5;
+		double[] amplitudes = new double[harmonics];
+		double[] phases = new double[harmonics];
+		for (int h = 0; h < harmonics; h++)
+		{
+			amplitudes[h] = random.nextDouble() * 0.25 / (h + 1);
+			phases[h] = random.nextDouble() * 2 * Math.PI;
+		}
+		double noise = Math.PI / points;
+		List<PolygonPoint> outline = new ArrayList<PolygonPoint>(points);
+		for (int i = 0; i < points; i++)
+		{
+			double angle = angle(i, points);
+			double radius = 1.0;
+			for (int h = 0; h < harmonics; h++)
+			{
+				radius += amplitudes[h] * Math.cos((h + 2) * angle + phases[h]);
+			}
+			radius += noise * (2 * random.nextDouble() - 1);
+			outline.add(polar(radius, angle));
+		}
+		return outline;
+	}
+
+	/**
+	 * A small core with long branches, each with a shorter twig on either
+	 * side, so that the chordal axis has many junctions and terminals.
+	 */
+	public static List<PolygonPoint> tree(int points, int branches)
+	{
+		double spacing = 2 * Math.PI / branches;
+		List<PolygonPoint> outline = new ArrayList<PolygonPoint>(points);
+		for (int i = 0; i < points; i++)
+		{
+			double angle = angle(i, points);
+			double radius = 0.4;
+			for (int b = 0; b < branches; b++)
+			{
+				double offset = wrap(angle - b * spacing);
+				radius += 1.6 * bump(offset, 0.12 * spacing);
+				radius += 0.8 * bump(offset - 0.3 * spacing, 0.06 * spacing);
+				radius += 0.8 * bump(offset + 0.3 * spacing, 0.06 * spacing);
+			}
+			outline.add(polar(radius, angle));
+		}
+		return outline;
+	}
+
+	//1 at the center, 0 from width on, smooth in between
+	private static double bump(double offset, double width)
+	{
+		double x = Math.abs(offset) / width;
+		if(x >= 1.0)
+			return 0.0;
+		return 0.5 + 0.5 * Math.cos(Math.PI * x);
+	}
+
+	private static double wrap(double angle)
+	{
+		return angle - 2 * Math.PI * Math.floor((angle + Math.PI) / (2 * Math.PI));
+	}
+
+	private static double angle(int i, int points)
+	{
+		return 2 * Math.PI * i / points;
+	}
+
+	private static PolygonPoint polar(double radius, double angle)
+	{
+		return new PolygonPoint(radius * Math.cos(angle), radius * Math.sin(angle));
+	}
+}
@@ -0,0 +1,159 @@
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import model.ChordalAxis;
+import model.IndexedMesh;
+import model.SketchModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.poly2tri.geometry.polygon.PolygonPoint;
+import org.poly2tri.triangulation.delaunay.DelaunayTriangle;
+
+/**
+ * Measures each stage of the pipeline on its own. A stage only runs when its
+ * result is out of date, so every invocation gets a fresh model on which the
+ * stages before it already ran; preparing it is not measured. Run with the gc
+ * profiler to also see how much each stage allocates.
+ */
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PipelineBenchmark
+{
+	@State(Scope.Thread)
+	public static class Closed
+	{
+		@Param({Outlines.CIRCLE, Outlines.STAR, Outlines.SPIRAL, Outlines.BLOB, Outlines.TREE})
+		public String shape;
+
+		@Param({"100", "1000", "10000", "100000"})
+		public int points;
+
+		private List<PolygonPoint> outline;
+		protected SketchModel model;
+
+		@Setup(Level.Trial)
+		public void createOutline()
+		{
+			outline = Outlines.create(shape, points);
+		}
+
+		@Setup(Level.Invocation)
+		public void createModel()
+		{
+			model = new SketchModel();
+			//The model keeps the points, so give it copies
+			model.addPoints(Outlines.copy(outline));
+			model.close();
+		}
+	}
+
+	public static class Triangulated extends Closed
+	{
+		@Setup(Level.Invocation)
+		public void triangulate()
+		{
+			model.triangulate();
+		}
+	}
+
+	public static class Pruned extends Triangulated
+	{
+		@Setup(Level.Invocation)
+		public void prune()
+		{
+			model.prune();
+		}
+	}
+
+	public static class Subdivided extends Pruned
+	{
+		@Setup(Level.Invocation)
+		public void subdivide()
+		{
+			model.subdivide();
+		}
+	}
+
+	public static class Raised extends Subdivided
+	{
+		@Param({"5"})
+		public int faces;
+
+		@Setup(Level.Invocation)
+		public void raiseChordalAxis()
+		{
+			model.raiseChordalAxis();
+		}
+	}
+
+	//Cloning does not change the axis, so one triangulation serves all invocations
+	@State(Scope.Thread)
+	public static class Axis
+	{
+		@Param({Outlines.CIRCLE, Outlines.STAR, Outlines.SPIRAL, Outlines.BLOB, Outlines.TREE})
+		public String shape;
+
+		@Param({"100", "1000", "10000", "100000"})
+		public int points;
+
+		private ChordalAxis axis;
+
+		@Setup(Level.Trial)
+		public void triangulate()
+		{
+			SketchModel model = new SketchModel();
+			model.addPoints(Outlines.create(shape, points));
+			model.close();
+			model.triangulate();
+			axis = model.getChordalAxis();
+		}
+	}
+
+	@Benchmark
+	public List<DelaunayTriangle> triangulate(Closed state)
+	{
+		state.model.triangulate();
+		return state.model.getTriangles();
+	}
+
+	@Benchmark
+	public ChordalAxis prune(Triangulated state)
+	{
+		state.model.prune();
+		return state.model.getPrunedChordalAxis();
+	}
+
+	@Benchmark
+	public List<DelaunayTriangle> subdivide(Pruned state)
+	{
+		state.model.subdivide();
+		return state.model.getSubdividedTriangles();
+	}
+
+	@Benchmark
+	public ChordalAxis raiseChordalAxis(Subdivided state)
+	{
+		state.model.raiseChordalAxis();
+		return state.model.getRaisedChordalAxis();
+	}
+
+	@Benchmark
+	public IndexedMesh createMesh(Raised state)
+	{
+		state.model.createMesh(state.faces);
+		return state.model.getMesh();
+	}
+
+	@Benchmark
+	public ChordalAxis cloneChordalAxis(Axis state)
+	{
+		return state.axis.clone();
+	}
+}
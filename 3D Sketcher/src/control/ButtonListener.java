@@ -1,16 +1,27 @@
 package control;
 
+import java.io.File;
+import java.io.IOException;
+
+import export.MeshWriter;
 import model.SketchModel;
 
+import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.events.SelectionListener;
 import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.FileDialog;
 
 import view.Canvas3D;
 import view.SketchWindow;
 
 public class ButtonListener implements SelectionListener
 {
+	//Maximum distance between a mesh face and the oval it approximates
+	private static final double MESH_DEVIATION = 0.01;
+	//Outline points closer than this to the simplified outline are left out
+	private static final double OUTLINE_TOLERANCE = 0.005;
+	
 	private SketchModel model;
 	private Canvas3D canvas;
 	private SketchWindow window;
@@ -101,12 +112,25 @@ public class ButtonListener implements SelectionListener
 		}
 		else if(b.getText().equals("Mesh"))
 		{
-			model.prune();
-			model.subdivide();
-			model.createMesh(5);
+			model.createMesh(MESH_DEVIATION);
 			boolean meshShown = canvas.meshShown();
 			canvas.showMesh(!meshShown);
 		}
+		else if(b.getText().equals("Statistics"))
+		{
+			boolean statisticsShown = canvas.statisticsShown();
+			canvas.showStatistics(!statisticsShown);
+		}
+		else if(b.getText().equals("Simplify"))
+		{
+			b.setText("Drawn Outline");
+			setOutlineSimplification(OUTLINE_TOLERANCE);
+		}
+		else if(b.getText().equals("Drawn Outline"))
+		{
+			b.setText("Simplify");
+			setOutlineSimplification(0.0);
+		}
 		else if(b.getText().equals("Axes"))
 		{
 			boolean axesShown = canvas.axesShown();
@@ -114,13 +138,88 @@ public class ButtonListener implements SelectionListener
 		}
 		else if(b.getText().equals("Reset Camera"))
 		{
-			canvas.getCamera().reset();
+			canvas.resetCamera();
 		}
 		else if(b.getText().equals("Reset Pruning"))
 		{
 			model.resetPruning();
 			window.resetPruningButtons();
 		}
+		else if(b.getText().equals("Export"))
+		{
+			exportMesh();
+		}
+		else if(b.getText().equals("Undo"))
+		{
+			undo();
+		}
+		else if(b.getText().equals("Redo"))
+		{
+			redo();
+		}
+		//Most buttons change the model or what is shown
+		canvas.requestRedraw();
+	}
+	
+	//Triangulates a closed outline again, along with the later stages that are shown
+	private void setOutlineSimplification(double tolerance)
+	{
+		model.setOutlineSimplification(tolerance, 0.0);
+		if(!model.isClosed())
+			return;
+		model.triangulate();
+		if(canvas.meshShown())
+			model.createMesh(MESH_DEVIATION);
+		else if(canvas.raiseAxisShown())
+			model.raiseChordalAxis();
+		else if(canvas.subdivisionShown())
+			model.subdivide();
+		else if(canvas.prunedShown())
+			model.prune();
+		window.updatePruningButtons();
+	}
+	
+	public void undo()
+	{
+		model.undo();
+		window.updatePruningButtons();
+		canvas.requestRedraw();
+	}
+	
+	public void redo()
+	{
+		model.redo();
+		window.updatePruningButtons();
+		canvas.requestRedraw();
+	}
+	
+	private void exportMesh()
+	{
+		if(model.getMesh() == null)
+			return;
+		FileDialog dialog = new FileDialog(window.getShell(), SWT.SAVE);
+		dialog.setFilterExtensions(new String[] {"*.stl", "*.ply", "*.obj"});
+		dialog.setFilterNames(new String[] {"Binary STL", "Binary PLY", "Wavefront OBJ"});
+		dialog.setOverwrite(true);
+		String path = dialog.open();
+		if(path == null)
+			return;
+		File file = new File(path);
+		if(file.getName().indexOf('.') < 0)
+		{
+			String extension = dialog.getFilterExtensions()[dialog.getFilterIndex()].substring(1);
+			file = new File(path + extension);
+		}
+		try
+		{
+			MeshWriter.forFile(file).write(model.getMesh(), file);
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		} catch (IllegalArgumentException e)
+		{
+			e.printStackTrace();
+		}
 	}
 
 }
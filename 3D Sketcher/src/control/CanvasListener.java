@@ -69,7 +69,7 @@ public class CanvasListener implements MouseListener, MouseMoveListener, KeyList
 		}
 		start.x = e.x;
 		start.y = e.y;
-
+		canvas.setContinuousRedraw(leftMouseDown || rightMouseDown);
 	}
 
 	@Override
@@ -81,6 +81,7 @@ public class CanvasListener implements MouseListener, MouseMoveListener, KeyList
 			rightMouseDown = false;
 		end.x = e.x;
 		end.y = e.y;
+		canvas.setContinuousRedraw(leftMouseDown || rightMouseDown);
 	}
 
 	@Override
@@ -139,6 +140,7 @@ public class CanvasListener implements MouseListener, MouseMoveListener, KeyList
 		{		
 			model.addPoint(point);
 		}
+		canvas.requestRedraw();
 	}
 	
 	private Vector3D getClickedVector(int x, int y)
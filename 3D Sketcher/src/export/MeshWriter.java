@@ -0,0 +1,145 @@
+package export;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+
+import model.IndexedMesh;
+
+/**
+ * Writes an indexed mesh to a file. The file is streamed through a file
+ * channel from a direct buffer that is reused for every write, so memory use
+ * does not depend on the size of the mesh. A writer is not thread safe.
+ */
+public abstract class MeshWriter
+{
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private FileChannel channel;
+	//Reused to format numbers without creating a string for every one
+	private StringBuilder digits = new StringBuilder();
+
+	/**
+	 * @return a writer for the format given by the extension of the file name
+	 *         (stl, ply or obj)
+	 */
+	public static MeshWriter forFile(File file)
+	{
+		return forFormat(file.getName().substring(file.getName().lastIndexOf('.') + 1));
+	}
+
+	public static MeshWriter forFormat(String format)
+	{
+		if(format.equalsIgnoreCase("stl"))
+			return new StlWriter();
+		if(format.equalsIgnoreCase("ply"))
+			return new PlyWriter();
+		if(format.equalsIgnoreCase("obj"))
+			return new ObjWriter();
+		throw new IllegalArgumentException("Unknown mesh format '" + format + "'");
+	}
+
+	/**
+	 * @return the file extension of the format, without a dot
+	 */
+	public abstract String getExtension();
+
+	public void write(IndexedMesh mesh, File file) throws IOException
+	{
+		FileOutputStream stream = new FileOutputStream(file);
+		try
+		{
+			channel = stream.getChannel();
+			buffer.clear();
+			writeMesh(mesh);
+			flush();
+		} finally
+		{
+			channel = null;
+			stream.close();
+		}
+	}
+
+	protected abstract void writeMesh(IndexedMesh mesh) throws IOException;
+
+	/**
+	 * @return the buffer, with room for at least the given number of bytes
+	 */
+	protected ByteBuffer reserve(int bytes) throws IOException
+	{
+		if(buffer.remaining() < bytes)
+			flush();
+		return buffer;
+	}
+
+	protected void putFloats(FloatBuffer floats) throws IOException
+	{
+		int limit = floats.limit();
+		while(floats.hasRemaining())
+		{
+			reserve(4);
+			int count = Math.min(floats.remaining(), buffer.remaining() / 4);
+			floats.limit(floats.position() + count);
+			buffer.asFloatBuffer().put(floats);
+			floats.limit(limit);
+			buffer.position(buffer.position() + 4 * count);
+		}
+	}
+
+	protected void putAscii(String text) throws IOException
+	{
+		for (int i = 0; i < text.length(); i++)
+		{
+			reserve(1).put((byte)text.charAt(i));
+		}
+	}
+
+	protected void putAscii(int value) throws IOException
+	{
+		//An int has at most 11 characters
+		reserve(11);
+		if(value < 0)
+		{
+			buffer.put((byte)'-');
+			value = -value;
+		}
+		int divisor = 1;
+		while(value / divisor >= 10)
+		{
+			divisor *= 10;
+		}
+		for (; divisor > 0; divisor /= 10)
+		{
+			buffer.put((byte)('0' + value / divisor % 10));
+		}
+	}
+
+	/**
+	 * Puts the same characters as Float.toString.
+	 */
+	protected void putAscii(float value) throws IOException
+	{
+		digits.setLength(0);
+		digits.append(value);
+		reserve(digits.length());
+		for (int i = 0; i < digits.length(); i++)
+		{
+			buffer.put((byte)digits.charAt(i));
+		}
+	}
+
+	private void flush() throws IOException
+	{
+		buffer.flip();
+		while(buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
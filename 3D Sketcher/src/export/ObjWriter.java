@@ -0,0 +1,43 @@
+package export;
+
+import java.io.IOException;
+
+import model.IndexedMesh;
+
+/**
+ * Writes Wavefront OBJ with a "v" line per vertex and an "f" line per
+ * triangle.
+ */
+public class ObjWriter extends MeshWriter
+{
+	@Override
+	public String getExtension()
+	{
+		return "obj";
+	}
+
+	@Override
+	protected void writeMesh(IndexedMesh mesh) throws IOException
+	{
+		for (int i = 0; i < mesh.getVertexCount(); i++)
+		{
+			putAscii("v ");
+			putAscii(mesh.getX(i));
+			putAscii(" ");
+			putAscii(mesh.getY(i));
+			putAscii(" ");
+			putAscii(mesh.getZ(i));
+			putAscii("\n");
+		}
+		for (int i = 0; i < mesh.getTriangleCount(); i++)
+		{
+			putAscii("f ");
+			putAscii(mesh.getIndex(i, 0) + 1);
+			putAscii(" ");
+			putAscii(mesh.getIndex(i, 1) + 1);
+			putAscii(" ");
+			putAscii(mesh.getIndex(i, 2) + 1);
+			putAscii("\n");
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import model.IndexedMesh;
+
+/**
+ * Writes little endian binary PLY with a float position per vertex and a
+ * list of three vertex indices per face.
+ */
+public class PlyWriter extends MeshWriter
+{
+	@Override
+	public String getExtension()
+	{
+		return "ply";
+	}
+
+	@Override
+	protected void writeMesh(IndexedMesh mesh) throws IOException
+	{
+		putAscii("ply\nformat binary_little_endian 1.0\n");
+		putAscii("element vertex ");
+		putAscii(mesh.getVertexCount());
+		putAscii("\nproperty float x\nproperty float y\nproperty float z\n");
+		putAscii("element face ");
+		putAscii(mesh.getTriangleCount());
+		putAscii("\nproperty list uchar int vertex_indices\nend_header\n");
+
+		putFloats(mesh.getVertices());
+		for (int i = 0; i < mesh.getTriangleCount(); i++)
+		{
+			ByteBuffer buffer = reserve(13);
+			buffer.put((byte)3);
+			buffer.putInt(mesh.getIndex(i, 0));
+			buffer.putInt(mesh.getIndex(i, 1));
+			buffer.putInt(mesh.getIndex(i, 2));
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import model.IndexedMesh;
+
+/**
+ * Writes binary STL: an 80 byte header, the number of triangles, and per
+ * triangle its normal, its three corners and an unused attribute.
+ */
+public class StlWriter extends MeshWriter
+{
+	private static final int HEADER_SIZE = 80;
+	private static final int TRIANGLE_SIZE = 50;
+
+	@Override
+	public String getExtension()
+	{
+		return "stl";
+	}
+
+	@Override
+	protected void writeMesh(IndexedMesh mesh) throws IOException
+	{
+		ByteBuffer buffer = reserve(HEADER_SIZE + 4);
+		for (int i = 0; i < HEADER_SIZE; i++)
+		{
+			buffer.put((byte)0);
+		}
+		buffer.putInt(mesh.getTriangleCount());
+		for (int i = 0; i < mesh.getTriangleCount(); i++)
+		{
+			int a = mesh.getIndex(i, 0);
+			int b = mesh.getIndex(i, 1);
+			int c = mesh.getIndex(i, 2);
+			float abX = mesh.getX(b) - mesh.getX(a);
+			float abY = mesh.getY(b) - mesh.getY(a);
+			float abZ = mesh.getZ(b) - mesh.getZ(a);
+			float acX = mesh.getX(c) - mesh.getX(a);
+			float acY = mesh.getY(c) - mesh.getY(a);
+			float acZ = mesh.getZ(c) - mesh.getZ(a);
+			float normalX = abY * acZ - abZ * acY;
+			float normalY = abZ * acX - abX * acZ;
+			float normalZ = abX * acY - abY * acX;
+			float length = (float)Math.sqrt(normalX * normalX + normalY * normalY + normalZ * normalZ);
+			if(length > 0)
+			{
+				normalX /= length;
+				normalY /= length;
+				normalZ /= length;
+			}
+
+			buffer = reserve(TRIANGLE_SIZE);
+			buffer.putFloat(normalX).putFloat(normalY).putFloat(normalZ);
+			putVertex(buffer, mesh, a);
+			putVertex(buffer, mesh, b);
+			putVertex(buffer, mesh, c);
+			buffer.putShort((short)0);
+		}
+	}
+
+	private void putVertex(ByteBuffer buffer, IndexedMesh mesh, int vertex)
+	{
+		buffer.putFloat(mesh.getX(vertex)).putFloat(mesh.getY(vertex)).putFloat(mesh.getZ(vertex));
+	}
+}
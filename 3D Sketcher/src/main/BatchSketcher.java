@@ -0,0 +1,300 @@
+package main;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import export.MeshWriter;
+import metrics.MetricsRegistry;
+import model.MeshCache;
+import model.SketchModel;
+import model.Stage;
+
+import org.poly2tri.geometry.polygon.PolygonPoint;
+
+/**
+ * Runs the sketch pipeline without a user interface on every outline in a
+ * directory. An outline file contains one point per line, as an x and y
+ * coordinate separated by whitespace or a comma. Empty lines and lines
+ * starting with '#' are ignored.
+ *
+ * Meshes are written as stl, ply or obj (the default). With a cache directory,
+ * meshes of outlines that were processed before are read from the cache
+ * instead of being generated again.
+ *
+ * Besides the meshes, the output directory gets a summary with a line per
+ * outline, and the latencies and sizes of the pipeline stages over all
+ * outlines in metrics.json.
+ *
+ * Usage: BatchSketcher &lt;input directory&gt; &lt;output directory&gt; [faces] [threads] [format] [cache directory]
+ */
+public class BatchSketcher
+{
+	private static final int DEFAULT_NR_OF_FACES = 5;
+	private static final String DEFAULT_FORMAT = "obj";
+	private static final String SUMMARY_FILE = "summary.csv";
+	private static final String METRICS_FILE = "metrics.json";
+	private static final long CACHE_SIZE = 1L << 30;
+	//Every worker thread reuses one writer, and with it its buffer
+	private static final ThreadLocal<MeshWriter> writers = new ThreadLocal<MeshWriter>();
+
+	public static void main(String[] args)
+	{
+		if(args.length < 2)
+		{
+			System.err.println("Usage: BatchSketcher <input directory> <output directory> [faces] [threads] [format] [cache directory]");
+			System.exit(1);
+		}
+		File inputDirectory = new File(args[0]);
+		File outputDirectory = new File(args[1]);
+		int nrOfFaces = DEFAULT_NR_OF_FACES;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String format = DEFAULT_FORMAT;
+		if(args.length > 2)
+			nrOfFaces = Integer.parseInt(args[2]);
+		if(args.length > 3)
+			threads = Integer.parseInt(args[3]);
+		MeshCache cache = null;
+		if(args.length > 4)
+			format = args[4];
+		if(args.length > 5)
+			cache = new MeshCache(new File(args[5]), CACHE_SIZE);
+		//Fail before processing anything when the format is unknown
+		MeshWriter.forFormat(format);
+
+		File[] files = inputDirectory.listFiles();
+		if(files == null)
+		{
+			System.err.println("Could not read directory " + inputDirectory);
+			System.exit(1);
+		}
+		Arrays.sort(files);
+		outputDirectory.mkdirs();
+
+		MetricsRegistry metrics = new MetricsRegistry();
+		List<SketchTask> tasks = new ArrayList<SketchTask>();
+		for (File file : files)
+		{
+			if(file.isFile())
+				tasks.add(new SketchTask(file, outputDirectory, nrOfFaces, format, cache, metrics));
+		}
+
+		long start = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		pool.invoke(new BatchTask(tasks));
+		pool.shutdown();
+		long total = System.nanoTime() - start;
+
+		metrics.histogram("batch.nanos").record(total);
+		try
+		{
+			writeSummary(new File(outputDirectory, SUMMARY_FILE), tasks);
+			metrics.writeJson(new File(outputDirectory, METRICS_FILE));
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+		int failed = 0;
+		for (SketchTask task : tasks)
+		{
+			if(task.getRawResult().error != null)
+				failed++;
+		}
+		System.out.println("Processed " + tasks.size() + " outlines (" + failed + " failed) on " + threads + " threads in " + toMillis(total) + " ms");
+	}
+
+	private static void writeSummary(File file, List<SketchTask> tasks) throws IOException
+	{
+		PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file)));
+		try
+		{
+			writer.println("file,points,triangles,mesh triangles,cached,triangulate ms,prune ms,subdivide ms,mesh ms,write ms,total ms,error");
+			for (SketchTask task : tasks)
+			{
+				SketchResult result = task.getRawResult();
+				writer.print(task.file.getName());
+				writer.print(',');
+				writer.print(result.points);
+				writer.print(',');
+				writer.print(result.triangles);
+				writer.print(',');
+				writer.print(result.meshTriangles);
+				writer.print(',');
+				writer.print(result.cached);
+				writer.print(',');
+				writer.print(toMillis(result.triangulateTime));
+				writer.print(',');
+				writer.print(toMillis(result.pruneTime));
+				writer.print(',');
+				writer.print(toMillis(result.subdivideTime));
+				writer.print(',');
+				writer.print(toMillis(result.meshTime));
+				writer.print(',');
+				writer.print(toMillis(result.writeTime));
+				writer.print(',');
+				writer.print(toMillis(result.triangulateTime + result.pruneTime + result.subdivideTime + result.meshTime + result.writeTime));
+				writer.print(',');
+				if(result.error != null)
+					writer.print(result.error.replace(',', ';'));
+				writer.println();
+			}
+		} finally
+		{
+			writer.close();
+		}
+	}
+
+	private static double toMillis(long nanos)
+	{
+		return nanos / 1000000.0;
+	}
+
+	private static List<PolygonPoint> readOutline(File file) throws IOException
+	{
+		List<PolygonPoint> points = new ArrayList<PolygonPoint>();
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try
+		{
+			String line;
+			while((line = reader.readLine()) != null)
+			{
+				line = line.trim();
+				if(line.isEmpty() || line.startsWith("#"))
+					continue;
+				String[] values = line.split("[\\s,]+");
+				if(values.length < 2)
+					throw new IOException("Invalid point '" + line + "' in " + file.getName());
+				points.add(new PolygonPoint(Double.parseDouble(values[0]), Double.parseDouble(values[1])));
+			}
+		} finally
+		{
+			reader.close();
+		}
+		return points;
+	}
+
+	private static MeshWriter getWriter(String format)
+	{
+		MeshWriter writer = writers.get();
+		if(writer == null)
+		{
+			writer = MeshWriter.forFormat(format);
+			writers.set(writer);
+		}
+		return writer;
+	}
+
+	private static class BatchTask extends RecursiveTask<Void>
+	{
+		private static final long serialVersionUID = 1L;
+		private List<SketchTask> tasks;
+
+		public BatchTask(List<SketchTask> tasks)
+		{
+			this.tasks = tasks;
+		}
+
+		@Override
+		protected Void compute()
+		{
+			ForkJoinTask.invokeAll(tasks);
+			return null;
+		}
+	}
+
+	private static class SketchTask extends RecursiveTask<SketchResult>
+	{
+		private static final long serialVersionUID = 1L;
+		private File file;
+		private File outputDirectory;
+		private int nrOfFaces;
+		private String format;
+		private MeshCache cache;
+		private MetricsRegistry metrics;
+
+		public SketchTask(File file, File outputDirectory, int nrOfFaces, String format, MeshCache cache, MetricsRegistry metrics)
+		{
+			this.file = file;
+			this.outputDirectory = outputDirectory;
+			this.nrOfFaces = nrOfFaces;
+			this.format = format;
+			this.cache = cache;
+			this.metrics = metrics;
+		}
+
+		@Override
+		protected SketchResult compute()
+		{
+			SketchResult result = new SketchResult();
+			try
+			{
+				List<PolygonPoint> outline = readOutline(file);
+				result.points = outline.size();
+				SketchModel model = new SketchModel();
+				model.setMeshCache(cache);
+				model.setMetrics(metrics);
+				model.addPoints(outline);
+				model.close();
+
+				//Runs the stages only when the mesh is not cached
+				model.createMesh(nrOfFaces);
+				result.cached = model.getMesh() != null && !model.isValid(Stage.TRIANGULATION);
+				result.triangles = model.getTriangles().size();
+				result.triangulateTime = model.getStageTime(Stage.TRIANGULATION) + model.getStageTime(Stage.CHORDAL_AXIS);
+				result.pruneTime = model.getStageTime(Stage.PRUNED_AXIS);
+				result.subdivideTime = model.getStageTime(Stage.SUBDIVISION);
+				result.meshTime = model.getStageTime(Stage.RAISED_AXIS) + model.getStageTime(Stage.MESH);
+				result.meshTriangles = model.getMesh().getTriangleCount();
+
+				long start = System.nanoTime();
+				MeshWriter writer = getWriter(format);
+				writer.write(model.getMesh(), new File(outputDirectory, getBaseName(file) + "." + writer.getExtension()));
+				result.writeTime = System.nanoTime() - start;
+				metrics.histogram("write.nanos").record(result.writeTime);
+				metrics.counter("batch.outlines").increment();
+			} catch (ThreadDeath e)
+			{
+				throw e;
+			} catch (Throwable e)
+			{
+				//Also errors such as a stack overflow, so one outline does not abort the batch
+				result.error = e.toString();
+				metrics.counter("batch.failures").increment();
+			}
+			return result;
+		}
+
+		private static String getBaseName(File file)
+		{
+			String name = file.getName();
+			int extension = name.lastIndexOf('.');
+			if(extension > 0)
+				return name.substring(0, extension);
+			return name;
+		}
+	}
+
+	private static class SketchResult
+	{
+		private int points;
+		private int triangles;
+		private int meshTriangles;
+		private boolean cached;
+		private long triangulateTime;
+		private long pruneTime;
+		private long subdivideTime;
+		private long meshTime;
+		private long writeTime;
+		private String error;
+	}
+}
@@ -17,6 +17,9 @@ public class Sketcher {
 		Display display = Display.getDefault();
 		Shell shell = new Shell(display);
 		SketchWindow window = new SketchWindow(shell, SWT.NULL);
+		//Sketches larger than the default grid need a larger plane to draw on
+		if(args.length > 0)
+			window.setGridExtent(Integer.parseInt(args[0]));
 		Point size = window.getSize();
 		shell.setLayout(new FillLayout());
 		shell.setText("3D Sketcher");
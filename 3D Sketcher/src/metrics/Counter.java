@@ -0,0 +1,26 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A count that can be increased from any thread without locking.
+ */
+public class Counter
+{
+	private final AtomicLong count = new AtomicLong();
+
+	public void increment()
+	{
+		count.incrementAndGet();
+	}
+
+	public void add(long amount)
+	{
+		count.addAndGet(amount);
+	}
+
+	public long get()
+	{
+		return count.get();
+	}
+}
@@ -0,0 +1,106 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts non-negative values, such as latencies in nanoseconds or sizes, in
+ * logarithmic buckets. Values below 16 have a bucket each; every larger power
+ * of two is split into 16 buckets, so a percentile is off by at most 1/16 of
+ * its value. Values can be recorded from any thread without locking.
+ */
+public class Histogram
+{
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+	public void record(long value)
+	{
+		if(value < 0)
+			value = 0;
+		buckets.incrementAndGet(getBucket(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		long current;
+		while(value < (current = min.get()) && !min.compareAndSet(current, value))
+		{
+			//Retry, another thread changed the minimum
+		}
+		while(value > (current = max.get()) && !max.compareAndSet(current, value))
+		{
+			//Retry, another thread changed the maximum
+		}
+	}
+
+	private static int getBucket(long value)
+	{
+		if(value < SUB_BUCKETS)
+			return (int)value;
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	//The largest value that falls into the bucket
+	private static long getUpperBound(int bucket)
+	{
+		if(bucket < SUB_BUCKETS)
+			return bucket;
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lower = (long)(SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lower + (1L << shift) - 1;
+	}
+
+	public long getCount()
+	{
+		return count.get();
+	}
+
+	public long getSum()
+	{
+		return sum.get();
+	}
+
+	public long getMin()
+	{
+		return getCount() == 0 ? 0 : min.get();
+	}
+
+	public long getMax()
+	{
+		return getCount() == 0 ? 0 : max.get();
+	}
+
+	public double getMean()
+	{
+		long n = getCount();
+		return n == 0 ? 0.0 : getSum() / (double)n;
+	}
+
+	/**
+	 * @return the smallest value that the given percentage of the recorded
+	 *         values does not exceed, within the precision of the buckets
+	 */
+	public long getPercentile(double percentage)
+	{
+		long n = getCount();
+		if(n == 0)
+			return 0;
+		long rank = Math.max(1, (long)Math.ceil(percentage / 100.0 * n));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++)
+		{
+			seen += buckets.get(i);
+			if(seen >= rank)
+				return Math.min(getUpperBound(i), getMax());
+		}
+		return getMax();
+	}
+}
@@ -0,0 +1,153 @@
+package metrics;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Named counters and histograms that can be shared by models on different
+ * threads. A metric is created the first time it is asked for, and the whole
+ * registry can be written out as JSON.
+ */
+public class MetricsRegistry
+{
+	private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+	private ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+	private ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+
+	public Counter counter(String name)
+	{
+		Counter counter = counters.get(name);
+		if(counter == null)
+		{
+			Counter created = new Counter();
+			counter = counters.putIfAbsent(name, created);
+			if(counter == null)
+				counter = created;
+		}
+		return counter;
+	}
+
+	public Histogram histogram(String name)
+	{
+		Histogram histogram = histograms.get(name);
+		if(histogram == null)
+		{
+			Histogram created = new Histogram();
+			histogram = histograms.putIfAbsent(name, created);
+			if(histogram == null)
+				histogram = created;
+		}
+		return histogram;
+	}
+
+	/**
+	 * @return the counters by name, in alphabetical order
+	 */
+	public Map<String, Counter> getCounters()
+	{
+		return new TreeMap<String, Counter>(counters);
+	}
+
+	/**
+	 * @return the histograms by name, in alphabetical order
+	 */
+	public Map<String, Histogram> getHistograms()
+	{
+		return new TreeMap<String, Histogram>(histograms);
+	}
+
+	public void writeJson(File file) throws IOException
+	{
+		PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file)));
+		try
+		{
+			writeJson(writer);
+		} finally
+		{
+			writer.close();
+		}
+	}
+
+	public String toJson()
+	{
+		StringWriter json = new StringWriter();
+		writeJson(new PrintWriter(json));
+		return json.toString();
+	}
+
+	/**
+	 * Writes the counters as numbers and the histograms as objects with their
+	 * count, sum, minimum, maximum, mean and percentiles.
+	 */
+	public void writeJson(PrintWriter writer)
+	{
+		writer.println("{");
+		writer.println("  \"counters\": {");
+		String separator = "";
+		for (Map.Entry<String, Counter> entry : getCounters().entrySet())
+		{
+			writer.print(separator);
+			writer.print("    " + quote(entry.getKey()) + ": " + entry.getValue().get());
+			separator = ",\n";
+		}
+		writer.println();
+		writer.println("  },");
+		writer.println("  \"histograms\": {");
+		separator = "";
+		for (Map.Entry<String, Histogram> entry : getHistograms().entrySet())
+		{
+			Histogram histogram = entry.getValue();
+			writer.print(separator);
+			writer.print("    " + quote(entry.getKey()) + ": {\"count\": " + histogram.getCount());
+			writer.print(", \"sum\": " + histogram.getSum());
+			writer.print(", \"min\": " + histogram.getMin());
+			writer.print(", \"max\": " + histogram.getMax());
+			writer.print(", \"mean\": " + histogram.getMean());
+			for (double percentile : PERCENTILES)
+			{
+				writer.print(", \"p" + formatPercentile(percentile) + "\": " + histogram.getPercentile(percentile));
+			}
+			writer.print("}");
+			separator = ",\n";
+		}
+		writer.println();
+		writer.println("  }");
+		writer.println("}");
+		writer.flush();
+	}
+
+	//50 becomes 50, 99.9 becomes 999
+	private static String formatPercentile(double percentile)
+	{
+		String text = Double.toString(percentile);
+		if(text.endsWith(".0"))
+			text = text.substring(0, text.length() - 2);
+		return text.replace(".", "");
+	}
+
+	private static String quote(String text)
+	{
+		StringBuilder quoted = new StringBuilder(text.length() + 2);
+		quoted.append('"');
+		for (int i = 0; i < text.length(); i++)
+		{
+			char c = text.charAt(i);
+			if(c == '"' || c == '\\')
+				quoted.append('\\').append(c);
+			else if(c < 0x20)
+				quoted.append(String.format("\\u%04x", (int)c));
+			else
+				quoted.append(c);
+		}
+		return quoted.append('"').toString();
+	}
+}
@@ -1,6 +1,10 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 import org.poly2tri.triangulation.TriangulationPoint;
 
@@ -8,52 +12,52 @@ import util.Util;
 
 public class ChordalAxis
 {
+	//Must be larger than Util.THRESHOLD, so a point within the threshold is always in a neighbouring cell
+	private static final double CELL_SIZE = 0.001;
+	
 	private ArrayList<ChordalAxisPoint> points = new ArrayList<ChordalAxisPoint>();
+	private HashMap<Long, ArrayList<ChordalAxisPoint>> grid = new HashMap<Long, ArrayList<ChordalAxisPoint>>();
+	private Set<ChordalAxisPoint> removedPoints = Collections.newSetFromMap(new IdentityHashMap<ChordalAxisPoint, Boolean>());
 	
 	public ChordalAxis(ArrayList<ChordalAxisPoint> points)
 	{
 		this.points = points;
-	}
-	
-	public void addPoint(ChordalAxisPoint point)
-	{
-		if(!points.contains(point))
-			points.add(point);
+		for (ChordalAxisPoint point : points)
+		{
+			addToGrid(point);
+		}
 	}
 	
 	public ChordalAxis clone()
 	{
+		ArrayList<ChordalAxisPoint> points = getPoints();
 		ArrayList<ChordalAxisPoint> clonedPoints = new ArrayList<ChordalAxisPoint>(points.size());
+		IdentityHashMap<ChordalAxisPoint, ChordalAxisPoint> clones = new IdentityHashMap<ChordalAxisPoint, ChordalAxisPoint>(points.size());
 		for (ChordalAxisPoint point : points)
 		{
-			 clonedPoints.add(point.clone());
+			ChordalAxisPoint clonedPoint = point.clone();
+			clonedPoints.add(clonedPoint);
+			clones.put(point, clonedPoint);
 		}
-		for (ChordalAxisPoint clonedPoint : clonedPoints)
+		for (ChordalAxisPoint original : points)
 		{
-			ChordalAxisPoint original = findSamePoint(this.points, clonedPoint);
+			ChordalAxisPoint clonedPoint = clones.get(original);
 			for (ChordalAxisPoint originalNeighbour : original.getConnections())
 			{
-				ChordalAxisPoint clonedNeighbour = findSamePoint(clonedPoints, originalNeighbour);
-				clonedPoint.connect(clonedNeighbour);
+				clonedPoint.connect(clones.get(originalNeighbour));
 			}
 		}
-		ChordalAxis clone = new ChordalAxis(clonedPoints);
-		return clone;
+		return new ChordalAxis(clonedPoints);
 	}
 	
 	public boolean contains(TriangulationPoint point)
 	{
-		for (ChordalAxisPoint checkPoint : points)
-		{
-			if(Util.distance(checkPoint.getPoint(), point)<Util.THRESHOLD)
-				return true;
-		}
-		return false;
+		return getPoint(point) != null;
 	}
 	
 	public void removePoint(TriangulationPoint point)
 	{
-		ChordalAxisPoint pointToRemove =  findSamePoint(points, new ChordalAxisPoint(point));
+		ChordalAxisPoint pointToRemove = getPoint(point);
 		ArrayList<ChordalAxisPoint> connections = pointToRemove.getConnections();
 		ArrayList<ChordalAxisPoint> oldConnections = new ArrayList<ChordalAxisPoint>(connections.size());
 		for (ChordalAxisPoint connection : connections)
@@ -69,36 +73,51 @@ public class ChordalAxis
 				connection.connect(connection2);
 			}
 		}
-		points.remove(pointToRemove);
-	}
-	
-	private ChordalAxisPoint findSamePoint(ArrayList<ChordalAxisPoint> points, ChordalAxisPoint point)
-	{
-		for (ChordalAxisPoint checkPoint : points)
-		{
-			if(Util.distance(checkPoint.getPoint(), point.getPoint())<Util.THRESHOLD)
-				return checkPoint;
-		}
-		return null;
+		//The point is taken out of the list the next time the list is needed
+		removedPoints.add(pointToRemove);
+		removeFromGrid(pointToRemove);
 	}
 	
 	public ChordalAxisPoint getPoint(TriangulationPoint point)
 	{
-		for (ChordalAxisPoint checkPoint : points)
+		long cellX = getCell(point.getX());
+		long cellY = getCell(point.getY());
+		for (long x = cellX - 1; x <= cellX + 1; x++)
 		{
-			if(Util.distance(checkPoint.getPoint(), point)<Util.THRESHOLD)
-				return checkPoint;
+			for (long y = cellY - 1; y <= cellY + 1; y++)
+			{
+				ArrayList<ChordalAxisPoint> cell = grid.get(getKey(x, y));
+				if(cell == null)
+					continue;
+				for (ChordalAxisPoint checkPoint : cell)
+				{
+					if(Util.distance(checkPoint.getPoint(), point)<Util.THRESHOLD)
+						return checkPoint;
+				}
+			}
 		}
 		return null;
 	}
 	
 	public ArrayList<ChordalAxisPoint> getPoints()
 	{
+		if(!removedPoints.isEmpty())
+		{
+			ArrayList<ChordalAxisPoint> remaining = new ArrayList<ChordalAxisPoint>(points.size());
+			for (ChordalAxisPoint point : points)
+			{
+				if(!removedPoints.contains(point))
+					remaining.add(point);
+			}
+			points = remaining;
+			removedPoints.clear();
+		}
 		return points;
 	}
 	
 	public ArrayList<TriangulationPoint> getTriangulationPoints()
 	{
+		ArrayList<ChordalAxisPoint> points = getPoints();
 		ArrayList<TriangulationPoint> result = new ArrayList<TriangulationPoint>(points.size());
 		for (ChordalAxisPoint point : points)
 		{
@@ -106,4 +125,37 @@ public class ChordalAxis
 		}
 		return result;
 	}
+	
+	private void addToGrid(ChordalAxisPoint point)
+	{
+		Long key = getKey(getCell(point.getX()), getCell(point.getY()));
+		ArrayList<ChordalAxisPoint> cell = grid.get(key);
+		if(cell == null)
+		{
+			cell = new ArrayList<ChordalAxisPoint>(1);
+			grid.put(key, cell);
+		}
+		cell.add(point);
+	}
+	
+	private void removeFromGrid(ChordalAxisPoint point)
+	{
+		Long key = getKey(getCell(point.getX()), getCell(point.getY()));
+		ArrayList<ChordalAxisPoint> cell = grid.get(key);
+		if(cell == null)
+			return;
+		cell.remove(point);
+		if(cell.isEmpty())
+			grid.remove(key);
+	}
+	
+	private static long getCell(double coordinate)
+	{
+		return (long)Math.floor(coordinate / CELL_SIZE);
+	}
+	
+	private static Long getKey(long cellX, long cellY)
+	{
+		return (cellX << 32) ^ (cellY & 0xffffffffL);
+	}
 }
@@ -91,10 +91,8 @@ public class ChordalAxisPoint
 	public ChordalAxisPoint clone()
 	{
 		ChordalAxisPoint clone = new ChordalAxisPoint(point,height);
-		for (TriangulationPoint outlinePoint : outlinePoints)
-		{
-			clone.addOutlinePoint(outlinePoint);
-		}
+		//The outline points are already distinct
+		clone.outlinePoints.addAll(outlinePoints);
 		return clone;
 	}
 }
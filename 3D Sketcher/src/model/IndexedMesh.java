@@ -0,0 +1,78 @@
+package model;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * A triangle mesh stored as a shared vertex array (x, y and z per vertex) and
+ * an index array with three vertex indices per triangle.
+ */
+public class IndexedMesh
+{
+	private FloatBuffer vertices;
+	private IntBuffer indices;
+
+	public IndexedMesh(float[] vertices, int[] indices)
+	{
+		this.vertices = FloatBuffer.wrap(vertices);
+		this.indices = IntBuffer.wrap(indices);
+	}
+
+	/**
+	 * Uses the buffers as they are, from their positions up to their limits.
+	 */
+	public IndexedMesh(FloatBuffer vertices, IntBuffer indices)
+	{
+		this.vertices = vertices.slice();
+		this.indices = indices.slice();
+	}
+
+	public int getVertexCount()
+	{
+		return vertices.limit() / 3;
+	}
+
+	public int getTriangleCount()
+	{
+		return indices.limit() / 3;
+	}
+
+	public float getX(int vertex)
+	{
+		return vertices.get(3 * vertex);
+	}
+
+	public float getY(int vertex)
+	{
+		return vertices.get(3 * vertex + 1);
+	}
+
+	public float getZ(int vertex)
+	{
+		return vertices.get(3 * vertex + 2);
+	}
+
+	/**
+	 * @return the index of the given corner (0, 1 or 2) of a triangle
+	 */
+	public int getIndex(int triangle, int corner)
+	{
+		return indices.get(3 * triangle + corner);
+	}
+
+	/**
+	 * @return a read-only view of the vertex data, positioned at the first vertex
+	 */
+	public FloatBuffer getVertices()
+	{
+		return vertices.asReadOnlyBuffer();
+	}
+
+	/**
+	 * @return a read-only view of the triangle indices, positioned at the first triangle
+	 */
+	public IntBuffer getIndices()
+	{
+		return indices.asReadOnlyBuffer();
+	}
+}
@@ -0,0 +1,302 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import org.poly2tri.triangulation.TriangulationPoint;
+
+import util.Util;
+
+/**
+ * Inflates a raised chordal axis into an indexed mesh. Every axis point gets
+ * quarter ovals between each pair of its outline points (fan triangles) and
+ * between itself and each connection that shares one of its outline points
+ * (point triangles).
+ *
+ * A quarter oval is stitched between two rings. A ring runs from an outline
+ * point up to a raised axis point. Vertices are welded while they are laid
+ * out: every outline point and every axis point is a single vertex, and the
+ * ring between an axis point and one of its outline points is shared by all
+ * quarter ovals that use it. Triangles that collapse because of the welding
+ * are left out.
+ *
+ * Rings either all use the same number of faces, or each ring gets the number
+ * of faces that keeps its quarter oval within a maximum chordal deviation.
+ * Two rings with a different number of faces are zipped together, always
+ * advancing along the ring whose next vertex lies at the lower angle.
+ *
+ * The layout fixes the vertex slots of every axis point up front, so the rings
+ * and triangles of separate ranges of axis points can be generated
+ * concurrently. Each range collects its own triangles, which are concatenated
+ * in axis point order; the result does not depend on the number of threads.
+ */
+class MeshBuilder
+{
+	private static final int CHUNK_SIZE = 256;
+	private static final int MAX_ADAPTIVE_FACES = 64;
+
+	private List<ChordalAxisPoint> axisPoints;
+	private int nrOfFaces;
+	private double maxDeviation;
+
+	private IdentityHashMap<ChordalAxisPoint, Integer> axisIndices;
+	//Per axis point, the vertex index of each of its outline points
+	private int[][] outlineVertices;
+	//Per axis point, the vertex index of its raised position, followed by its rings
+	private int[] axisVertices;
+	//Per axis point, the profile and the first vertex index of each of its rings
+	private QuarterOvalProfile[][] ringProfiles;
+	private int[][] ringVertices;
+	private float[] vertices;
+
+	/**
+	 * Builds every quarter oval with the given number of faces.
+	 */
+	public MeshBuilder(List<ChordalAxisPoint> axisPoints, int nrOfFaces)
+	{
+		this.axisPoints = axisPoints;
+		this.nrOfFaces = nrOfFaces;
+	}
+
+	/**
+	 * Builds every quarter oval with the fewest faces (up to 64) for which no
+	 * face lies further than maxDeviation from the oval.
+	 */
+	public MeshBuilder(List<ChordalAxisPoint> axisPoints, double maxDeviation)
+	{
+		this.axisPoints = axisPoints;
+		this.maxDeviation = maxDeviation;
+	}
+
+	public IndexedMesh build(boolean parallel)
+	{
+		layoutVertices();
+		List<Chunk> chunks = new ArrayList<Chunk>();
+		for (int from = 0; from < axisPoints.size(); from += CHUNK_SIZE)
+		{
+			chunks.add(new Chunk(from, Math.min(from + CHUNK_SIZE, axisPoints.size())));
+		}
+		if(parallel && chunks.size() > 1)
+		{
+			ParallelTasks.invokeAll(chunks);
+		}
+		else
+		{
+			for (Chunk chunk : chunks)
+			{
+				chunk.compute();
+			}
+		}
+
+		int indexCount = 0;
+		for (Chunk chunk : chunks)
+		{
+			indexCount += chunk.indexCount;
+		}
+		int[] indices = new int[indexCount];
+		int offset = 0;
+		for (Chunk chunk : chunks)
+		{
+			System.arraycopy(chunk.indices, 0, indices, offset, chunk.indexCount);
+			offset += chunk.indexCount;
+		}
+		return new IndexedMesh(vertices, indices);
+	}
+
+	private void layoutVertices()
+	{
+		int size = axisPoints.size();
+		axisIndices = new IdentityHashMap<ChordalAxisPoint, Integer>(size);
+		outlineVertices = new int[size][];
+		axisVertices = new int[size];
+		ringProfiles = new QuarterOvalProfile[size][];
+		ringVertices = new int[size][];
+
+		IdentityHashMap<TriangulationPoint, Integer> outlineIndices = new IdentityHashMap<TriangulationPoint, Integer>();
+		List<TriangulationPoint> outline = new ArrayList<TriangulationPoint>();
+		for (int i = 0; i < size; i++)
+		{
+			ChordalAxisPoint axisPoint = axisPoints.get(i);
+			axisIndices.put(axisPoint, i);
+			List<TriangulationPoint> outlinePoints = axisPoint.getOutlinePoints();
+			outlineVertices[i] = new int[outlinePoints.size()];
+			ringProfiles[i] = new QuarterOvalProfile[outlinePoints.size()];
+			ringVertices[i] = new int[outlinePoints.size()];
+			for (int k = 0; k < outlinePoints.size(); k++)
+			{
+				TriangulationPoint outlinePoint = outlinePoints.get(k);
+				Integer index = outlineIndices.get(outlinePoint);
+				if(index == null)
+				{
+					index = outline.size();
+					outlineIndices.put(outlinePoint, index);
+					outline.add(outlinePoint);
+				}
+				outlineVertices[i][k] = index;
+				ringProfiles[i][k] = getProfile(axisPoint, outlinePoint);
+			}
+		}
+
+		int vertexCount = outline.size();
+		for (int i = 0; i < size; i++)
+		{
+			axisVertices[i] = vertexCount++;
+			for (int k = 0; k < ringProfiles[i].length; k++)
+			{
+				ringVertices[i][k] = vertexCount;
+				vertexCount += ringProfiles[i][k].getNrOfFaces() - 1;
+			}
+		}
+
+		vertices = new float[3 * vertexCount];
+		for (int i = 0; i < outline.size(); i++)
+		{
+			setVertex(i, outline.get(i).getX(), outline.get(i).getY(), 0.0);
+		}
+	}
+
+	private QuarterOvalProfile getProfile(ChordalAxisPoint axisPoint, TriangulationPoint outlinePoint)
+	{
+		if(nrOfFaces > 0)
+			return QuarterOvalProfile.get(nrOfFaces);
+		//A chord spanning an angle a on a circle of radius r deviates r*(1 - cos(a/2)) from it
+		double radius = Math.max(Util.distance(axisPoint.getPoint(), outlinePoint), Math.abs(axisPoint.getZ()));
+		if(!(radius > maxDeviation))
+			return QuarterOvalProfile.get(1);
+		double stepAngle = 2*Math.acos(1 - maxDeviation/radius);
+		double steps = Math.ceil(Math.PI/2/stepAngle);
+		return QuarterOvalProfile.get((int)Math.max(1, Math.min(MAX_ADAPTIVE_FACES, steps)));
+	}
+
+	private void createRings(int axisIndex)
+	{
+		ChordalAxisPoint axisPoint = axisPoints.get(axisIndex);
+		double x = axisPoint.getX();
+		double y = axisPoint.getY();
+		double height = axisPoint.getZ();
+		setVertex(axisVertices[axisIndex], x, y, height);
+		List<TriangulationPoint> outlinePoints = axisPoint.getOutlinePoints();
+		for (int k = 0; k < outlinePoints.size(); k++)
+		{
+			double deltaX = outlinePoints.get(k).getX() - x;
+			double deltaY = outlinePoints.get(k).getY() - y;
+			QuarterOvalProfile profile = ringProfiles[axisIndex][k];
+			for (int step = 1; step < profile.getNrOfFaces(); step++)
+			{
+				double cos = profile.getCos(step);
+				setVertex(getVertex(axisIndex, k, step), x + cos*deltaX, y + cos*deltaY, profile.getSin(step)*height);
+			}
+		}
+	}
+
+	private void createQuarterOvals(int axisIndex, Chunk chunk)
+	{
+		ChordalAxisPoint point = axisPoints.get(axisIndex);
+		List<TriangulationPoint> outlinePoints = point.getOutlinePoints();
+		//Fan triangles
+		for (int k1 = 0; k1 < outlinePoints.size(); k1++)
+		{
+			for (int k2 = 0; k2 < outlinePoints.size(); k2++)
+			{
+				if(k1 != k2)
+					createQuarterOval(axisIndex, k1, axisIndex, k2, chunk);
+			}
+		}
+		//Point triangles
+		for (ChordalAxisPoint connection : point.getConnections())
+		{
+			int connectionIndex = axisIndices.get(connection);
+			List<TriangulationPoint> connectionOutlinePoints = connection.getOutlinePoints();
+			for (int k2 = 0; k2 < connectionOutlinePoints.size(); k2++)
+			{
+				int k1 = outlinePoints.indexOf(connectionOutlinePoints.get(k2));
+				if(k1 >= 0)
+					createQuarterOval(axisIndex, k1, connectionIndex, k2, chunk);
+			}
+		}
+	}
+
+	private void createQuarterOval(int axisIndex1, int outlineIndex1, int axisIndex2, int outlineIndex2, Chunk chunk)
+	{
+		int steps1 = ringProfiles[axisIndex1][outlineIndex1].getNrOfFaces();
+		int steps2 = ringProfiles[axisIndex2][outlineIndex2].getNrOfFaces();
+		int step1 = 0;
+		int step2 = 0;
+		while(step1 < steps1 || step2 < steps2)
+		{
+			int a = getVertex(axisIndex1, outlineIndex1, step1);
+			int c = getVertex(axisIndex2, outlineIndex2, step2);
+			//Compare the angles of the next vertices, step/steps, without dividing
+			if(step1 == steps1 || (step2 < steps2 && (step2 + 1) * steps1 <= (step1 + 1) * steps2))
+			{
+				chunk.addTriangle(a, c, getVertex(axisIndex2, outlineIndex2, ++step2));
+			}
+			else
+			{
+				chunk.addTriangle(a, getVertex(axisIndex1, outlineIndex1, ++step1), c);
+			}
+		}
+	}
+
+	//Step 0 is the outline point, the last step is the raised axis point
+	private int getVertex(int axisIndex, int outlineIndex, int step)
+	{
+		if(step == 0)
+			return outlineVertices[axisIndex][outlineIndex];
+		if(step == ringProfiles[axisIndex][outlineIndex].getNrOfFaces())
+			return axisVertices[axisIndex];
+		return ringVertices[axisIndex][outlineIndex] + step - 1;
+	}
+
+	private void setVertex(int vertex, double x, double y, double z)
+	{
+		vertices[3 * vertex] = (float)x;
+		vertices[3 * vertex + 1] = (float)y;
+		vertices[3 * vertex + 2] = (float)z;
+	}
+
+	/**
+	 * Creates the rings and quarter ovals of a range of axis points.
+	 */
+	private class Chunk extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		private int from;
+		private int to;
+		private int[] indices = new int[1024];
+		private int indexCount = 0;
+
+		public Chunk(int from, int to)
+		{
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute()
+		{
+			for (int i = from; i < to; i++)
+			{
+				createRings(i);
+			}
+			for (int i = from; i < to; i++)
+			{
+				createQuarterOvals(i, this);
+			}
+		}
+
+		private void addTriangle(int a, int b, int c)
+		{
+			if(a == b || b == c || a == c)
+				return;
+			if(indexCount + 3 > indices.length)
+				indices = Arrays.copyOf(indices, 2 * indices.length);
+			indices[indexCount++] = a;
+			indices[indexCount++] = b;
+			indices[indexCount++] = c;
+		}
+	}
+}
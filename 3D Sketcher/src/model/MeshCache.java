@@ -0,0 +1,310 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.poly2tri.triangulation.TriangulationPoint;
+
+/**
+ * Keeps generated meshes in a directory, one file per mesh, keyed by a hash
+ * of the outline and the parameters the mesh was generated with. A file holds
+ * the vertex and index counts followed by the flat vertex and index arrays. A
+ * cached mesh is memory mapped and handed out as a view on the file, without
+ * copying it.
+ *
+ * When the files take up more than the maximum size, the least recently used
+ * meshes are deleted. The order of use is kept in the modification times of
+ * the files, so it carries over to the next run. The cache can be shared by
+ * models on different threads.
+ */
+public class MeshCache
+{
+	private static final String EXTENSION = ".mesh";
+	private static final int MAGIC = 0x4d534831;
+	private static final int HEADER_SIZE = 12;
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private File directory;
+	private long maxSize;
+	private long size = 0;
+	//Cached file sizes by key, least recently used first
+	private LinkedHashMap<String, Long> entries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+
+	public MeshCache(File directory, long maxSize)
+	{
+		this.directory = directory;
+		this.maxSize = maxSize;
+		directory.mkdirs();
+		File[] files = directory.listFiles();
+		if(files == null)
+			return;
+		Arrays.sort(files, new Comparator<File>()
+		{
+			@Override
+			public int compare(File file1, File file2)
+			{
+				return Long.compare(file1.lastModified(), file2.lastModified());
+			}
+		});
+		for (File file : files)
+		{
+			String name = file.getName();
+			if(name.endsWith(EXTENSION))
+			{
+				entries.put(name.substring(0, name.length() - EXTENSION.length()), file.length());
+				size += file.length();
+			}
+		}
+	}
+
+	/**
+	 * @return a hash of the coordinates of the outline points
+	 */
+	public static String getOutlineKey(List<TriangulationPoint> outline)
+	{
+		MessageDigest digest = createDigest();
+		ByteBuffer point = ByteBuffer.allocate(16);
+		for (TriangulationPoint outlinePoint : outline)
+		{
+			point.clear();
+			point.putDouble(outlinePoint.getX()).putDouble(outlinePoint.getY());
+			digest.update(point.array());
+		}
+		return toHex(digest.digest());
+	}
+
+	//The key of a mesh combines the outline with the parameters it was generated with
+	private static String getKey(String outlineKey, String parameters)
+	{
+		MessageDigest digest = createDigest();
+		digest.update(outlineKey.getBytes(UTF_8));
+		digest.update(parameters.getBytes(UTF_8));
+		return toHex(digest.digest());
+	}
+
+	private static MessageDigest createDigest()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes)
+	{
+		StringBuilder hex = new StringBuilder(2 * bytes.length);
+		for (byte b : bytes)
+		{
+			hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return hex.toString();
+	}
+
+	/**
+	 * @return the cached mesh, mapped from its file, or null if there is none
+	 */
+	public synchronized IndexedMesh get(String outlineKey, String parameters)
+	{
+		String key = getKey(outlineKey, parameters);
+		//Getting the entry, unlike containsKey, makes it the most recently used
+		if(entries.get(key) == null)
+			return null;
+		File file = getFile(key);
+		try
+		{
+			IndexedMesh mesh = map(file);
+			file.setLastModified(System.currentTimeMillis());
+			return mesh;
+		} catch (IOException e)
+		{
+			//The file is gone or damaged, generate the mesh again
+			remove(key);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the mesh to a file of its own without holding the lock, so other
+	 * threads can use the cache meanwhile. Only publishing the file and
+	 * evicting other meshes are done under the lock.
+	 */
+	public void put(String outlineKey, String parameters, IndexedMesh mesh)
+	{
+		String key = getKey(outlineKey, parameters);
+		synchronized(this)
+		{
+			if(entries.containsKey(key))
+				return;
+		}
+		File temporary = null;
+		try
+		{
+			temporary = File.createTempFile(key, ".tmp", directory);
+			write(temporary, mesh);
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+			if(temporary != null)
+				temporary.delete();
+			return;
+		}
+		synchronized(this)
+		{
+			//Another thread may have cached the same mesh while this one was written
+			if(entries.containsKey(key))
+			{
+				temporary.delete();
+				return;
+			}
+			File file = getFile(key);
+			try
+			{
+				publish(temporary, file);
+			} catch (IOException e)
+			{
+				e.printStackTrace();
+				temporary.delete();
+				return;
+			}
+			entries.put(key, file.length());
+			size += file.length();
+			evict();
+		}
+	}
+
+	//Replaces a file that is already there, which renameTo does not do on Windows
+	private static void publish(File temporary, File file) throws IOException
+	{
+		try
+		{
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e)
+		{
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	//Files that can not be deleted yet, for instance because they are still mapped on Windows, are tried again on the next eviction
+	private void evict()
+	{
+		Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+		while(size > maxSize && iterator.hasNext())
+		{
+			Map.Entry<String, Long> entry = iterator.next();
+			if(delete(entry.getKey()))
+			{
+				size -= entry.getValue();
+				iterator.remove();
+			}
+		}
+	}
+
+	//A file that can not be deleted keeps its entry, so it is still counted and evicted later
+	private void remove(String key)
+	{
+		if(!delete(key))
+			return;
+		Long fileSize = entries.remove(key);
+		if(fileSize != null)
+			size -= fileSize;
+	}
+
+	private boolean delete(String key)
+	{
+		File file = getFile(key);
+		return file.delete() || !file.exists();
+	}
+
+	private File getFile(String key)
+	{
+		return new File(directory, key + EXTENSION);
+	}
+
+	private static IndexedMesh map(File file) throws IOException
+	{
+		RandomAccessFile input = new RandomAccessFile(file, "r");
+		try
+		{
+			//The mapping stays valid after the file is closed
+			MappedByteBuffer buffer = input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, input.length());
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			if(buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC)
+				throw new IOException("Not a cached mesh: " + file);
+			int vertexCount = buffer.getInt();
+			int indexCount = buffer.getInt();
+			if(buffer.remaining() != 12L * vertexCount + 4L * indexCount)
+				throw new IOException("Truncated cached mesh: " + file);
+			FloatBuffer vertices = buffer.asFloatBuffer();
+			vertices.limit(3 * vertexCount);
+			buffer.position(buffer.position() + 12 * vertexCount);
+			IntBuffer indices = buffer.asIntBuffer();
+			return new IndexedMesh(vertices, indices);
+		} finally
+		{
+			input.close();
+		}
+	}
+
+	private static void write(File file, IndexedMesh mesh) throws IOException
+	{
+		RandomAccessFile output = new RandomAccessFile(file, "rw");
+		try
+		{
+			output.setLength(0);
+			FileChannel channel = output.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt(mesh.getVertexCount()).putInt(3 * mesh.getTriangleCount());
+			FloatBuffer vertices = mesh.getVertices();
+			while(vertices.hasRemaining())
+			{
+				if(buffer.remaining() < 4)
+					flush(channel, buffer);
+				buffer.putFloat(vertices.get());
+			}
+			IntBuffer indices = mesh.getIndices();
+			while(indices.hasRemaining())
+			{
+				if(buffer.remaining() < 4)
+					flush(channel, buffer);
+				buffer.putInt(indices.get());
+			}
+			flush(channel, buffer);
+		} finally
+		{
+			output.close();
+		}
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		buffer.flip();
+		while(buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
@@ -0,0 +1,190 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.poly2tri.geometry.polygon.PolygonPoint;
+import org.poly2tri.triangulation.TriangulationPoint;
+
+import util.Util;
+
+/**
+ * Cleans up a closed outline before it is triangulated. Points closer than the
+ * tolerance to the previously kept point are dropped, the remaining outline is
+ * simplified with Douglas-Peucker, and optionally resampled to points that lie
+ * a fixed arc length apart. The first point of the outline is always kept.
+ */
+class OutlineSimplifier
+{
+	private double tolerance;
+	private double spacing;
+
+	/**
+	 * @param tolerance the maximum distance between the outline and its
+	 *            simplification, 0 to keep every point
+	 * @param spacing the arc length between resampled points, 0 to not resample
+	 */
+	public OutlineSimplifier(double tolerance, double spacing)
+	{
+		this.tolerance = tolerance;
+		this.spacing = spacing;
+	}
+
+	public double getTolerance()
+	{
+		return tolerance;
+	}
+
+	public double getSpacing()
+	{
+		return spacing;
+	}
+
+	/**
+	 * @return the simplified outline, which reuses the points of the original
+	 *         outline except when it is resampled
+	 */
+	public List<PolygonPoint> simplify(List<TriangulationPoint> outline)
+	{
+		List<TriangulationPoint> points = outline;
+		if(tolerance > 0)
+			points = douglasPeucker(removeDuplicates(points));
+		if(spacing > 0)
+			points = resample(points);
+		List<PolygonPoint> result = new ArrayList<PolygonPoint>(points.size());
+		for (TriangulationPoint point : points)
+		{
+			if(point instanceof PolygonPoint)
+				result.add((PolygonPoint)point);
+			else
+				result.add(new PolygonPoint(point.getX(), point.getY()));
+		}
+		return result;
+	}
+
+	private List<TriangulationPoint> removeDuplicates(List<TriangulationPoint> outline)
+	{
+		List<TriangulationPoint> result = new ArrayList<TriangulationPoint>(outline.size());
+		TriangulationPoint last = null;
+		for (TriangulationPoint point : outline)
+		{
+			if(last == null || Util.distance(last, point) >= tolerance)
+			{
+				result.add(point);
+				last = point;
+			}
+		}
+		//The outline is closed, so the last point also follows the first one
+		while(result.size() > 1 && Util.distance(result.get(result.size() - 1), result.get(0)) < tolerance)
+		{
+			result.remove(result.size() - 1);
+		}
+		return result;
+	}
+
+	//Splits the closed outline at the point furthest from the first point and simplifies both halves
+	private List<TriangulationPoint> douglasPeucker(List<TriangulationPoint> outline)
+	{
+		int size = outline.size();
+		if(size < 4)
+			return outline;
+		TriangulationPoint first = outline.get(0);
+		int furthest = 1;
+		for (int i = 2; i < size; i++)
+		{
+			if(Util.distance(first, outline.get(i)) > Util.distance(first, outline.get(furthest)))
+				furthest = i;
+		}
+
+		boolean[] keep = new boolean[size];
+		keep[0] = true;
+		keep[furthest] = true;
+		//Index size stands for the first point, closing the outline
+		int[] stack = new int[2 * size];
+		int top = 0;
+		stack[top++] = 0;
+		stack[top++] = furthest;
+		stack[top++] = furthest;
+		stack[top++] = size;
+		while(top > 0)
+		{
+			int end = stack[--top];
+			int start = stack[--top];
+			TriangulationPoint a = outline.get(start);
+			TriangulationPoint b = outline.get(end % size);
+			int split = -1;
+			double maxDistance = tolerance;
+			for (int i = start + 1; i < end; i++)
+			{
+				double distance = distanceToSegment(outline.get(i), a, b);
+				if(distance > maxDistance)
+				{
+					maxDistance = distance;
+					split = i;
+				}
+			}
+			if(split >= 0)
+			{
+				keep[split] = true;
+				stack[top++] = start;
+				stack[top++] = split;
+				stack[top++] = split;
+				stack[top++] = end;
+			}
+		}
+
+		List<TriangulationPoint> result = new ArrayList<TriangulationPoint>();
+		for (int i = 0; i < size; i++)
+		{
+			if(keep[i])
+				result.add(outline.get(i));
+		}
+		return result.size() < 3 ? outline : result;
+	}
+
+	private List<TriangulationPoint> resample(List<TriangulationPoint> outline)
+	{
+		int size = outline.size();
+		double perimeter = 0.0;
+		for (int i = 0; i < size; i++)
+		{
+			perimeter += Util.distance(outline.get(i), outline.get((i + 1) % size));
+		}
+		int count = Math.max(3, (int)Math.round(perimeter / spacing));
+		double step = perimeter / count;
+
+		List<TriangulationPoint> result = new ArrayList<TriangulationPoint>(count);
+		result.add(outline.get(0));
+		int edge = 0;
+		double edgeStart = 0.0;
+		double edgeLength = Util.distance(outline.get(0), outline.get(1 % size));
+		for (int i = 1; i < count; i++)
+		{
+			double position = i * step;
+			while(edgeStart + edgeLength < position && edge < size - 1)
+			{
+				edgeStart += edgeLength;
+				edge++;
+				edgeLength = Util.distance(outline.get(edge), outline.get((edge + 1) % size));
+			}
+			TriangulationPoint a = outline.get(edge);
+			TriangulationPoint b = outline.get((edge + 1) % size);
+			double fraction = edgeLength > 0 ? (position - edgeStart) / edgeLength : 0.0;
+			result.add(new PolygonPoint(a.getX() + fraction * (b.getX() - a.getX()), a.getY() + fraction * (b.getY() - a.getY())));
+		}
+		return result;
+	}
+
+	private static double distanceToSegment(TriangulationPoint point, TriangulationPoint a, TriangulationPoint b)
+	{
+		double dx = b.getX() - a.getX();
+		double dy = b.getY() - a.getY();
+		double lengthSquared = dx * dx + dy * dy;
+		double fraction = 0.0;
+		if(lengthSquared > 0)
+			fraction = Math.max(0.0, Math.min(1.0, ((point.getX() - a.getX()) * dx + (point.getY() - a.getY()) * dy) / lengthSquared));
+		double x = a.getX() + fraction * dx - point.getX();
+		double y = a.getY() + fraction * dy - point.getY();
+		return Math.sqrt(x * x + y * y);
+	}
+}
@@ -0,0 +1,102 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.poly2tri.Poly2Tri;
+import org.poly2tri.geometry.polygon.Polygon;
+import org.poly2tri.geometry.polygon.PolygonPoint;
+import org.poly2tri.triangulation.TriangulationPoint;
+import org.poly2tri.triangulation.delaunay.DelaunayTriangle;
+
+/**
+ * Triangulates a snapshot of an outline that is still being drawn, as if it
+ * was closed. Poly2Tri stores constraint edges on the points it triangulates,
+ * so the work is done on copies of the outline points. The resulting triangles
+ * are then pointed back at the original points, which makes them
+ * interchangeable with a triangulation of the outline polygon itself.
+ *
+ * When a simplifier is given the snapshot is simplified first, and the
+ * triangles refer to the points of the simplified outline.
+ */
+class OutlineTriangulation implements Callable<List<DelaunayTriangle>>
+{
+	private List<PolygonPoint> outline;
+	private OutlineSimplifier simplifier;
+	private List<PolygonPoint> triangulatedOutline;
+	private List<DelaunayTriangle> triangles;
+
+	public OutlineTriangulation(List<PolygonPoint> outline, OutlineSimplifier simplifier)
+	{
+		this.outline = outline;
+		this.simplifier = simplifier;
+	}
+
+	/**
+	 * @return the outline that was triangulated, simplified or not
+	 */
+	public List<PolygonPoint> getTriangulatedOutline()
+	{
+		return triangulatedOutline;
+	}
+
+	/**
+	 * @return the triangles found by the last call, or null
+	 */
+	public List<DelaunayTriangle> getTriangles()
+	{
+		return triangles;
+	}
+
+	/**
+	 * @return the interior triangles, or null when the outline can not be
+	 *         triangulated (for instance because it intersects itself)
+	 */
+	@Override
+	public List<DelaunayTriangle> call()
+	{
+		List<PolygonPoint> outline = this.outline;
+		if(simplifier != null)
+			outline = simplifier.simplify(new ArrayList<TriangulationPoint>(this.outline));
+		triangulatedOutline = outline;
+		IdentityHashMap<TriangulationPoint, TriangulationPoint> originals = new IdentityHashMap<TriangulationPoint, TriangulationPoint>(outline.size());
+		ArrayList<PolygonPoint> copies = new ArrayList<PolygonPoint>(outline.size());
+		for (TriangulationPoint point : outline)
+		{
+			PolygonPoint copy = new PolygonPoint(point.getX(), point.getY());
+			copies.add(copy);
+			originals.put(copy, point);
+		}
+		Polygon polygon = new Polygon(copies);
+		try
+		{
+			Poly2Tri.triangulate(polygon);
+		} catch (RuntimeException e)
+		{
+			return null;
+		}
+		triangles = polygon.getTriangles();
+		for (DelaunayTriangle triangle : triangles)
+		{
+			replacePoints(triangle, originals);
+			for (DelaunayTriangle neighbour : triangle.neighbors)
+			{
+				if(neighbour != null)
+					replacePoints(neighbour, originals);
+			}
+		}
+		return triangles;
+	}
+
+	private void replacePoints(DelaunayTriangle triangle, IdentityHashMap<TriangulationPoint, TriangulationPoint> originals)
+	{
+		for (int i = 0; i < 3; i++)
+		{
+			TriangulationPoint original = originals.get(triangle.points[i]);
+			if(original != null)
+				triangle.points[i] = original;
+		}
+	}
+}
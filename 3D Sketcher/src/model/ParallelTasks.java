@@ -0,0 +1,42 @@
+package model;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs fork/join tasks of the model. Inside a ForkJoinPool (for instance in a
+ * batch run) the tasks are forked into that pool, otherwise into a pool that
+ * is shared by all models.
+ */
+class ParallelTasks
+{
+	private static ForkJoinPool pool;
+
+	public static void invokeAll(final List<? extends ForkJoinTask<?>> tasks)
+	{
+		if(ForkJoinTask.inForkJoinPool())
+		{
+			ForkJoinTask.invokeAll(tasks);
+			return;
+		}
+		getPool().invoke(new RecursiveAction()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute()
+			{
+				invokeAll(tasks);
+			}
+		});
+	}
+
+	private static synchronized ForkJoinPool getPool()
+	{
+		if(pool == null)
+			pool = new ForkJoinPool();
+		return pool;
+	}
+}
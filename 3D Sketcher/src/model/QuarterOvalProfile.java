@@ -0,0 +1,60 @@
+package model;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The unit quarter oval used to inflate the mesh, sampled in a fixed number
+ * of steps. Step i lies at an angle of i*90/nrOfFaces degrees, so a ring is
+ * found by scaling the cosine with the width and the sine with the height of
+ * a quarter oval. Profiles are shared per number of faces.
+ */
+class QuarterOvalProfile
+{
+	private static final ConcurrentHashMap<Integer, QuarterOvalProfile> profiles = new ConcurrentHashMap<Integer, QuarterOvalProfile>();
+	
+	private final int nrOfFaces;
+	private final double[] cos;
+	private final double[] sin;
+	
+	private QuarterOvalProfile(int nrOfFaces)
+	{
+		this.nrOfFaces = nrOfFaces;
+		this.cos = new double[nrOfFaces + 1];
+		this.sin = new double[nrOfFaces + 1];
+		double degreesPerStep = 90.0/nrOfFaces;
+		for (int i = 0; i <= nrOfFaces; i++)
+		{
+			double angle = Math.toRadians(i*degreesPerStep);
+			cos[i] = Math.cos(angle);
+			sin[i] = Math.sin(angle);
+		}
+	}
+	
+	public static QuarterOvalProfile get(int nrOfFaces)
+	{
+		QuarterOvalProfile profile = profiles.get(nrOfFaces);
+		if(profile == null)
+		{
+			profile = new QuarterOvalProfile(nrOfFaces);
+			QuarterOvalProfile existing = profiles.putIfAbsent(nrOfFaces, profile);
+			if(existing != null)
+				profile = existing;
+		}
+		return profile;
+	}
+	
+	public int getNrOfFaces()
+	{
+		return nrOfFaces;
+	}
+	
+	public double getCos(int step)
+	{
+		return cos[step];
+	}
+	
+	public double getSin(int step)
+	{
+		return sin[step];
+	}
+}
@@ -0,0 +1,76 @@
+package model;
+
+import java.util.ArrayList;
+
+/**
+ * A bounded undo/redo history of states. Pushing a state discards the states
+ * that could be redone; when the history is full the oldest state is dropped.
+ * Stepping through the history only moves an index, so the cost of undo and
+ * redo does not depend on the size of the states.
+ */
+class SketchHistory<T>
+{
+	private ArrayList<T> states = new ArrayList<T>();
+	private int current = -1;
+	private int capacity;
+
+	public SketchHistory(int capacity)
+	{
+		setCapacity(capacity);
+	}
+
+	public void setCapacity(int capacity)
+	{
+		this.capacity = Math.max(1, capacity);
+		while(states.size() > this.capacity && current > 0)
+		{
+			states.remove(0);
+			current--;
+		}
+	}
+
+	public void push(T state)
+	{
+		while(states.size() > current + 1)
+		{
+			states.remove(states.size() - 1);
+		}
+		states.add(state);
+		if(states.size() > capacity)
+			states.remove(0);
+		current = states.size() - 1;
+	}
+
+	public T getCurrent()
+	{
+		return current < 0 ? null : states.get(current);
+	}
+
+	/**
+	 * Replaces the current state without changing what can be undone or redone.
+	 */
+	public void setCurrent(T state)
+	{
+		states.set(current, state);
+	}
+
+	public boolean canUndo()
+	{
+		return current > 0;
+	}
+
+	public boolean canRedo()
+	{
+		return current < states.size() - 1;
+	}
+
+	public T undo()
+	{
+		return states.get(--current);
+	}
+
+	public T redo()
+	{
+		return states.get(++current);
+	}
+}
@@ -1,7 +1,21 @@
 package model;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadFactory;
+
+import metrics.MetricsRegistry;
 
 import org.poly2tri.Poly2Tri;
 import org.poly2tri.geometry.polygon.Polygon;
@@ -11,158 +25,498 @@ import org.poly2tri.triangulation.delaunay.DelaunayTriangle;
 import org.poly2tri.triangulation.delaunay.sweep.DTSweepConstraint;
 
 import util.Util;
-import util.Vector3D;
 
 public class SketchModel
 {
+	private static final int TERMINAL = 1;
+	private static final int SLEEVE = 2;
+	private static final int JUNCTION = 3;
+	private static final double RAISE_CONSTANT = 1.0;
+	private static final int DEFAULT_HISTORY_SIZE = 1000;
+	
 	private PolygonPoint point1, point2;
+	//The outline as it was drawn, the simplifier never changes it
 	private Polygon base;
-	private List<DelaunayTriangle> triangles;
 	private boolean closed = false;
-	private boolean pruned = false;
-	private List<DelaunayTriangle> s;
-	private List<DelaunayTriangle> j;
-	private List<DelaunayTriangle> t;
-	private List<DelaunayTriangle> considered;
-	private ChordalAxis chordalAxis;
-	private List<DelaunayTriangle> prunedTriangles;
-	private ChordalAxis prunedChordalAxis;
-	private List<DelaunayTriangle> subdividedTriangles;
-	private ChordalAxis raisedChordalAxis;
-	private ChordalAxis loweredChordalAxis;
-	
-	private DelaunayTriangle currentTerminal;
-	private DelaunayTriangle currentTriangle;
-	private DTSweepConstraint currentEdge;
-	private ArrayList<TriangulationPoint> pointsToCheck = new ArrayList<TriangulationPoint>();
-	
-	private ArrayList<Triangle> mesh;
-	
-	private TriangulationPoint circleCenter;
-	private double circleRadius;
+	//Everything derived from the outline, shared with the state in the history
+	private Pipeline pipeline = new Pipeline();
+	
+	//Nanoseconds the last run of each stage took, by ordinal
+	private long[] stageTimes = new long[Stage.values().length];
+	private MetricsRegistry metrics;
+	private MeshCache meshCache;
+	
+	private OutlineSimplifier simplifier;
+	private boolean incremental = false;
+	private boolean parallelPruning = false;
+	private boolean parallelMeshGeneration = false;
+	private BackgroundTriangulation triangulator;
+	
+	//The outline as it was drawn, shared with the states in the history
+	private OutlineNode outline;
+	private SketchHistory<SketchState> history = new SketchHistory<SketchState>(DEFAULT_HISTORY_SIZE);
 	
 	public SketchModel()
 	{
-		s = new ArrayList<DelaunayTriangle>();
-		j = new ArrayList<DelaunayTriangle>();
-		t = new ArrayList<DelaunayTriangle>();
-		triangles = new ArrayList<DelaunayTriangle>();
-		prunedTriangles = new ArrayList<DelaunayTriangle>();
-		subdividedTriangles = new ArrayList<DelaunayTriangle>();
-		considered = new ArrayList<DelaunayTriangle>();
+		history.push(new SketchState(null, false));
 	}
-
+	
 	public void addPoint(PolygonPoint point)
 	{
-		if (point1 == null)
-		{
-			point1 = point;
-		} else if (point2 == null)
+		addPoints(Collections.singletonList(point));
+	}
+	
+	/**
+	 * Adds the points to the outline in order, as a single edit: one undo
+	 * takes them all back.
+	 */
+	public void addPoints(List<PolygonPoint> points)
+	{
+		if(points.isEmpty())
+			return;
+		leaveState();
+		invalidate(Stage.TRIANGULATION);
+		ArrayList<PolygonPoint> basePoints = new ArrayList<PolygonPoint>(points.size());
+		for (PolygonPoint point : points)
 		{
-			point2 = point;
-		} else if (base == null)
+			if (point1 == null)
+			{
+				point1 = point;
+			} else if (point2 == null)
+			{
+				point2 = point;
+			} else if (base == null)
+			{
+				base = new Polygon(point1, point2, point);
+			} else
+			{
+				basePoints.add(point);
+			}
+			outline = new OutlineNode(point, outline);
+		}
+		if(!basePoints.isEmpty())
+			base.addPoints(basePoints);
+		history.push(new SketchState(outline, closed));
+		if(incremental && base != null)
+			scheduleTriangulation();
+	}
+	
+	/**
+	 * In incremental mode the outline is triangulated in the background while
+	 * it is being drawn, treating it as if it was already closed. Closing the
+	 * outline then only needs to classify the triangles and build the chordal
+	 * axis.
+	 */
+	public void setIncrementalTriangulation(boolean incremental)
+	{
+		this.incremental = incremental;
+		if(!incremental)
+			cancelTriangulation();
+	}
+	
+	private void scheduleTriangulation()
+	{
+		if(triangulator == null)
+			triangulator = new BackgroundTriangulation();
+		triangulator.request(outline, simplifier);
+	}
+	
+	/**
+	 * Simplifies the outline before it is triangulated. Points closer than
+	 * tolerance to their predecessor are removed and the outline is simplified
+	 * with Douglas-Peucker. With a spacing larger than 0 it is then resampled
+	 * to points that lie spacing apart along the outline. A tolerance and
+	 * spacing of 0 turn the simplification off. Only the polygon that is
+	 * triangulated is simplified, the drawn outline is kept as it is.
+	 */
+	public void setOutlineSimplification(double tolerance, double spacing)
+	{
+		if(tolerance > 0 || spacing > 0)
+			simplifier = new OutlineSimplifier(tolerance, spacing);
+		else
+			simplifier = null;
+		invalidate(Stage.TRIANGULATION);
+		if(incremental && !closed && base != null)
+			scheduleTriangulation();
+	}
+	
+	private void cancelTriangulation()
+	{
+		if(triangulator != null)
+			triangulator.cancel();
+	}
+	
+	//Returns the background triangulation of the complete outline, or null if there is none
+	private List<DelaunayTriangle> takeTriangulation()
+	{
+		if(triangulator == null)
+			return null;
+		try
 		{
-			base = new Polygon(point1, point2, point);
-		} else
+			OutlineTriangulation job = triangulator.take(outline, simplifier);
+			if(job == null || job.getTriangles() == null)
+				return null;
+			pipeline.polygon = new Polygon(job.getTriangulatedOutline());
+			return job.getTriangles();
+		} catch (InterruptedException e)
 		{
-			ArrayList<PolygonPoint> points = new ArrayList<PolygonPoint>();
-			points.add(point);
-			base.addPoints(points);
+			Thread.currentThread().interrupt();
+			return null;
 		}
 	}
 	
 	public void resetPruning()
 	{
-		prunedTriangles.clear();
-		prunedChordalAxis = chordalAxis.clone();
-		pointsToCheck.clear();
-		pruned = false;
+		invalidate(Stage.PRUNED_AXIS);
+		pipeline.prunedTriangles.clear();
+		pipeline.removedTriangles.clear();
+		pipeline.prunedChordalAxis = pipeline.chordalAxis.clone();
+		pipeline.pointsToCheck.clear();
+		pipeline.pruned = false;
 		
-		currentTerminal = null;
-		currentTriangle = null;
-		currentEdge = null;
-		circleCenter = null;
-		circleRadius = 0.0;
-		copyTriangles(triangles, prunedTriangles);
-		subdividedTriangles.clear();
+		pipeline.terminalIndex = 0;
+		pipeline.currentTerminal = null;
+		pipeline.currentTriangle = null;
+		pipeline.currentEdge = null;
+		pipeline.circleCenter = null;
+		pipeline.circleRadius = 0.0;
+		copyTriangles(pipeline.triangles, pipeline.prunedTriangles);
+		pipeline.subdividedTriangles.clear();
 	}
 
 	public void clear()
 	{
+		cancelTriangulation();
+		if(outline == null && !closed)
+			return;
+		leaveState();
 		point1 = null;
 		point2 = null;
 		base = null;
 		closed = false;
-		s.clear();
-		j.clear();
-		t.clear();
-		triangles.clear();
-		prunedTriangles.clear();
-		subdividedTriangles.clear();
-		chordalAxis = null;
-		prunedChordalAxis = null;
-		considered.clear();
-		pointsToCheck.clear();
-		pruned = false;
-		
-		currentTerminal = null;
-		currentTriangle = null;
-		currentEdge = null;
-		circleCenter = null;
-		circleRadius = 0.0;
+		outline = null;
+		pipeline = new Pipeline();
+		history.push(new SketchState(null, false));
 	}
 
 	public void close()
 	{
+		if(closed)
+			return;
+		leaveState();
 		closed = true;
+		history.push(new SketchState(outline, true));
+	}
+	
+	/**
+	 * Sets the maximum number of states kept for undo.
+	 */
+	public void setHistorySize(int size)
+	{
+		history.setCapacity(size);
+	}
+	
+	public boolean canUndo()
+	{
+		return history.canUndo();
+	}
+	
+	public boolean canRedo()
+	{
+		return history.canRedo();
+	}
+	
+	/**
+	 * Goes back to the state before the last added point, close or clear.
+	 * Triangulations, axes and meshes that were computed for a closed outline
+	 * are kept with its state, so they are not computed again after a redo.
+	 */
+	public void undo()
+	{
+		if(!history.canUndo())
+			return;
+		cancelTriangulation();
+		leaveState();
+		restoreState(history.undo());
+	}
+	
+	public void redo()
+	{
+		if(!history.canRedo())
+			return;
+		cancelTriangulation();
+		leaveState();
+		restoreState(history.redo());
+	}
+	
+	//Hands the pipeline of a closed outline to its state in the history
+	private void leaveState()
+	{
+		if(!closed)
+			return;
+		history.setCurrent(new SketchState(outline, true, pipeline));
+		pipeline = new Pipeline();
+	}
+	
+	private void restoreState(SketchState state)
+	{
+		outline = state.outline;
+		closed = state.closed;
+		pipeline = state.pipeline != null ? state.pipeline : new Pipeline();
+		rebuildBase();
+		if(incremental && !closed && base != null)
+			scheduleTriangulation();
+	}
+	
+	private void rebuildBase()
+	{
+		List<PolygonPoint> points = OutlineNode.toList(outline);
+		point1 = points.size() > 0 ? points.get(0) : null;
+		point2 = points.size() > 1 ? points.get(1) : null;
+		base = points.size() > 2 ? new Polygon(points) : null;
 	}
 
+	/**
+	 * @return whether the result of the stage is up to date with the outline
+	 */
+	public boolean isValid(Stage stage)
+	{
+		return pipeline.validStages.contains(stage);
+	}
+	
+	//Marks a stage and all stages that depend on it as out of date
+	private void invalidate(Stage stage)
+	{
+		pipeline.validStages.removeAll(EnumSet.range(stage, Stage.MESH));
+	}
+	
+	private boolean ensureTriangulated()
+	{
+		if(!isValid(Stage.TRIANGULATION) && closed && base != null)
+			triangulate();
+		return isValid(Stage.TRIANGULATION);
+	}
+	
+	/**
+	 * Triangulates the outline and calculates its chordal axis. Does nothing
+	 * when the outline did not change since it was last triangulated.
+	 */
 	public void triangulate()
 	{
-		Poly2Tri.triangulate(base);
-		triangles = base.getTriangles();
-		copyTriangles(triangles, prunedTriangles);
+		if(isValid(Stage.TRIANGULATION))
+			return;
+		long start = System.nanoTime();
+		//Everything derived from an earlier triangulation is out of date, start over
+		pipeline = new Pipeline();
+		List<DelaunayTriangle> triangulation = takeTriangulation();
+		if(triangulation != null)
+			count("triangulation.background");
+		else
+		{
+			pipeline.polygon = createPolygon();
+			//Points of an outline that was triangulated before still carry its constraint edges
+			for (TriangulationPoint point : pipeline.polygon.getPoints())
+			{
+				if(point.hasEdges())
+					point.getEdges().clear();
+			}
+			Poly2Tri.triangulate(pipeline.polygon);
+			triangulation = pipeline.polygon.getTriangles();
+		}
+		pipeline.triangles = triangulation;
+		start = recordStageTime(Stage.TRIANGULATION, start);
+		this.calculateOutlineIndices();
+		copyTriangles(pipeline.triangles, pipeline.prunedTriangles);
 		this.calculateTriangleTypes();
+		recordLatency("classification", System.nanoTime() - start);
 		this.calculateChordalAxis();
-		this.prunedChordalAxis = this.chordalAxis.clone();
+		pipeline.prunedChordalAxis = pipeline.chordalAxis.clone();
+		recordStageTime(Stage.CHORDAL_AXIS, start);
+		recordSize("outline.points", pipeline.polygon.getPoints().size());
+		recordSize("triangles", pipeline.triangles.size());
+		recordSize("axis.points", pipeline.chordalAxis.getPoints().size());
+		pipeline.validStages.add(Stage.TRIANGULATION);
+		pipeline.validStages.add(Stage.CHORDAL_AXIS);
+	}
+	
+	//Returns the current time, to start timing the next stage with
+	private long recordStageTime(Stage stage, long start)
+	{
+		long end = System.nanoTime();
+		stageTimes[stage.ordinal()] = end - start;
+		recordLatency(stage.name().toLowerCase(Locale.ROOT), end - start);
+		return end;
+	}
+	
+	/**
+	 * Records how long the stages take, how large their results are and how
+	 * often the pipeline falls back in the given registry. Latencies are in
+	 * nanoseconds, under the lower case name of the stage followed by
+	 * ".nanos". The chordal axis includes classifying the triangles, which is
+	 * also recorded on its own as "classification.nanos". Null turns
+	 * recording off.
+	 */
+	public void setMetrics(MetricsRegistry metrics)
+	{
+		this.metrics = metrics;
+	}
+	
+	private void recordLatency(String name, long nanos)
+	{
+		if(metrics != null)
+			metrics.histogram(name + ".nanos").record(nanos);
+	}
+	
+	private void recordSize(String name, long size)
+	{
+		if(metrics != null)
+			metrics.histogram(name).record(size);
+	}
+	
+	private void count(String name)
+	{
+		if(metrics != null)
+			metrics.counter(name).increment();
+	}
+	
+	/**
+	 * @return how many nanoseconds the last run of the stage took, without
+	 *         the stages it depends on, or 0 if it did not run yet
+	 */
+	public long getStageTime(Stage stage)
+	{
+		return stageTimes[stage.ordinal()];
+	}
+	
+	//Every triangulation starts from the drawn outline, so simplifications do not add up
+	private Polygon createPolygon()
+	{
+		List<PolygonPoint> points = OutlineNode.toList(outline);
+		if(simplifier != null)
+		{
+			List<PolygonPoint> simplified = simplifier.simplify(base.getPoints());
+			if(simplified.size() >= 3)
+				points = simplified;
+		}
+		return new Polygon(points);
 	}
 	
 	public void prune()
 	{
-		while(!pruned)
+		if(isValid(Stage.PRUNED_AXIS) || !ensureTriangulated())
+			return;
+		long start = System.nanoTime();
+		if(parallelPruning && !pipeline.pruned && pipeline.currentEdge==null && !pipeline.t.isEmpty())
 		{
-			pruneStep();
+			invalidate(Stage.PRUNED_AXIS);
+			pruneBranches();
+			pipeline.validStages.add(Stage.PRUNED_AXIS);
+		}
+		else if(!pipeline.pruned)
+		{
+			invalidate(Stage.PRUNED_AXIS);
+			//Continues a branch that pruneStep started, the terminals are walked in order
+			if(pipeline.currentEdge==null)
+			{
+				pipeline.terminalIndex = 0;
+				pipeline.currentTerminal = pipeline.t.get(pipeline.terminalIndex);
+				pruneCurrentTerminal();
+			}
+			while(!pipeline.pruned)
+			{
+				pruneCurrentEdge();
+			}
+			pipeline.validStages.add(Stage.PRUNED_AXIS);
 		}
+		recordStageTime(Stage.PRUNED_AXIS, start);
+	}
+	
+	/**
+	 * When set, prune() walks the branches of all terminal triangles
+	 * concurrently. The result is the same as pruning them one at a time.
+	 */
+	public void setParallelPruning(boolean parallelPruning)
+	{
+		this.parallelPruning = parallelPruning;
+	}
+	
+	//Branches only read the triangulation, their changes are applied afterwards in the sequential order
+	private void pruneBranches()
+	{
+		List<BranchWalk> walks = new ArrayList<BranchWalk>(pipeline.t.size());
+		for (DelaunayTriangle terminal : pipeline.t)
+		{
+			walks.add(new BranchWalk(terminal));
+		}
+		ParallelTasks.invokeAll(walks);
+		for (BranchWalk walk : walks)
+		{
+			for (DelaunayTriangle triangle : walk.prunedTriangles)
+			{
+				pruneTriangle(triangle);
+			}
+			for (TriangulationPoint axisPoint : walk.prunedAxisPoints)
+			{
+				pipeline.prunedChordalAxis.removePoint(axisPoint);
+			}
+			if(walk.fanCenter != null)
+				fanOut(walk.fanCenter, walk.fanEdge.p, walk.fanEdge.q, walk.pointsToCheck.getPoints());
+			if(walk.junctionPoint != null)
+				pipeline.prunedChordalAxis.getPoint(walk.fanCenter).addOutlinePoint(walk.junctionPoint);
+		}
+		pipeline.terminalIndex = pipeline.t.size()-1;
+		pipeline.pointsToCheck.clear();
+		pipeline.pruned = true;
+		pipeline.currentTerminal = null;
+		pipeline.currentTriangle = null;
+		pipeline.currentEdge = null;
+		updateCircle();
 	}
 	
 	public void pruneStep()
 	{
-		if(pruned)
+		if(pipeline.pruned)
 		{
-			circleCenter = null;
+			pipeline.circleCenter = null;
 			return;
 		}
-		if(currentEdge==null)
+		if(!ensureTriangulated())
+			return;
+		invalidate(Stage.PRUNED_AXIS);
+		if(pipeline.currentEdge==null)
 		{
-			currentTerminal = t.get(0);
+			pipeline.terminalIndex = 0;
+			pipeline.currentTerminal = pipeline.t.get(pipeline.terminalIndex);
 			pruneCurrentTerminal();
 		}
 		else
 		{
 			pruneCurrentEdge();
 		}
+		if(pipeline.pruned)
+			pipeline.validStages.add(Stage.PRUNED_AXIS);
 	}
 	
+	/**
+	 * Subdivides the pruned triangles, pruning them first if needed.
+	 */
 	public void subdivide()
 	{
-		subdividedTriangles.clear();
-		List<TriangulationPoint> chordalAxisPoints = prunedChordalAxis.getTriangulationPoints();
-		for (DelaunayTriangle triangle : prunedTriangles)
+		if(isValid(Stage.SUBDIVISION))
+			return;
+		prune();
+		if(!isValid(Stage.PRUNED_AXIS))
+			return;
+		long start = System.nanoTime();
+		invalidate(Stage.SUBDIVISION);
+		pipeline.subdividedTriangles.clear();
+		removePrunedTriangles();
+		for (DelaunayTriangle triangle : pipeline.prunedTriangles)
 		{
-			if(containAnyPoint(triangle, chordalAxisPoints))
+			if(containsAxisPoint(triangle))
 			{
 				//This is one of the fanned out triangles
-				subdividedTriangles.add(triangle);
+				pipeline.subdividedTriangles.add(triangle);
 			}
 			else if(isSleeve(triangle))
 			{
@@ -174,13 +528,25 @@ public class SketchModel
 				subdivideJunction(triangle);
 			}
 		}
+		recordStageTime(Stage.SUBDIVISION, start);
+		pipeline.validStages.add(Stage.SUBDIVISION);
 	}
 	
+	/**
+	 * Raises the chordal axis of the subdivided triangles, subdividing them
+	 * first if needed.
+	 */
 	public void raiseChordalAxis()
 	{
-		double raiseConstant = 1.0;
-		this.raisedChordalAxis = prunedChordalAxis.clone();
-		for (ChordalAxisPoint point : raisedChordalAxis.getPoints())
+		if(isValid(Stage.RAISED_AXIS))
+			return;
+		subdivide();
+		if(!isValid(Stage.SUBDIVISION))
+			return;
+		long start = System.nanoTime();
+		invalidate(Stage.RAISED_AXIS);
+		pipeline.raisedChordalAxis = pipeline.prunedChordalAxis.clone();
+		for (ChordalAxisPoint point : pipeline.raisedChordalAxis.getPoints())
 		{
 			double sum = 0.0;
 			for (TriangulationPoint outlinePoint : point.getOutlinePoints())
@@ -188,186 +554,130 @@ public class SketchModel
 				sum = sum + Util.distance(point.getPoint(), outlinePoint);
 			}
 			double avgDistance = sum/(double)point.getOutlinePoints().size();
-			point.setZ(raiseConstant*avgDistance);
+			point.setZ(RAISE_CONSTANT*avgDistance);
 		}
 		lowerChordalAxis();
+		recordStageTime(Stage.RAISED_AXIS, start);
+		pipeline.validStages.add(Stage.RAISED_AXIS);
 	}
 	
 	public void createMesh(int nrOfFaces)
 	{
 		if(nrOfFaces<1)
 			return;
-		raiseChordalAxis();
-		mesh = new ArrayList<Triangle>();
-		for (ChordalAxisPoint axisPoint : raisedChordalAxis.getPoints())
-		{
-			createQuarterOvals(axisPoint, nrOfFaces);
-		}
+		String parameters = getMeshParameters("faces=" + nrOfFaces);
+		if(!prepareMesh(parameters))
+			return;
+		long start = System.nanoTime();
+		IndexedMesh mesh = new MeshBuilder(pipeline.raisedChordalAxis.getPoints(), nrOfFaces).build(parallelMeshGeneration);
+		cacheMesh(parameters, mesh);
+		setMesh(mesh, parameters, start);
 	}
 	
-	private void createQuarterOvals(ChordalAxisPoint point, int nrOfFaces)
-	{
-		//Fan triangles
-		for (TriangulationPoint outlinePoint1 : point.getOutlinePoints())
-		{
-			for (TriangulationPoint outlinePoint2 : point.getOutlinePoints())
-			{
-				if(pointsArePartOfTriangle(point, outlinePoint1, outlinePoint2))
-					createQuarterOval(point,outlinePoint1,outlinePoint2,nrOfFaces);
-			}
-		}
-		//Point triangles
-		for (ChordalAxisPoint connection : point.getConnections())
-		{
-			for (TriangulationPoint outlinePoint : connection.getOutlinePoints())
-			{
-				if(pointsArePartOfTriangle(point, connection, outlinePoint))
-					createQuarterOval(point,connection,outlinePoint,nrOfFaces);
-			}
-		}
+	/**
+	 * Creates the mesh with a number of faces per quarter oval that depends on
+	 * its width and height: no face lies further than maxDeviation from the
+	 * oval it approximates.
+	 */
+	public void createMesh(double maxDeviation)
+	{
+		if(!(maxDeviation > 0))
+			return;
+		String parameters = getMeshParameters("deviation=" + maxDeviation);
+		if(!prepareMesh(parameters))
+			return;
+		long start = System.nanoTime();
+		IndexedMesh mesh = new MeshBuilder(pipeline.raisedChordalAxis.getPoints(), maxDeviation).build(parallelMeshGeneration);
+		cacheMesh(parameters, mesh);
+		setMesh(mesh, parameters, start);
 	}
 	
-	private boolean pointsArePartOfTriangle(ChordalAxisPoint point, TriangulationPoint outlinePoint1, TriangulationPoint outlinePoint2)
+	//Returns false when the current or a cached mesh can be used, or none can be made
+	private boolean prepareMesh(String parameters)
 	{
-		if(outlinePoint1==outlinePoint2)
+		if(isValid(Stage.MESH) && parameters.equals(pipeline.meshParameters))
 			return false;
-		boolean outlinePoint1Found = false;
-		boolean outlinePoint2Found = false;
-		for (TriangulationPoint outlinePoint : point.getOutlinePoints())
+		//A cached mesh does not need any of the stages before it
+		long start = System.nanoTime();
+		IndexedMesh cached = getCachedMesh(parameters);
+		if(cached != null)
 		{
-			if(outlinePoint1==outlinePoint)
-				outlinePoint1Found = true;
-			else if(outlinePoint2==outlinePoint)
-				outlinePoint2Found = true;
+			invalidate(Stage.MESH);
+			setMesh(cached, parameters, start);
+			return false;
 		}
-		return outlinePoint1Found && outlinePoint2Found;
+		raiseChordalAxis();
+		if(!isValid(Stage.RAISED_AXIS))
+			return false;
+		invalidate(Stage.MESH);
+		return true;
 	}
 	
-	private boolean pointsArePartOfTriangle(ChordalAxisPoint point1, ChordalAxisPoint point2, TriangulationPoint outlinePoint)
+	private void setMesh(IndexedMesh mesh, String parameters, long start)
 	{
-		if(point1==point2)
-			return false;
-		boolean outlinePointFound1 = point1.getOutlinePoints().contains(outlinePoint);
-		boolean outlinePointFound2 = point2.getOutlinePoints().contains(outlinePoint);
-		return outlinePointFound1 && outlinePointFound2;
-	}
-	
-	private void createQuarterOval(ChordalAxisPoint point1, ChordalAxisPoint point2, TriangulationPoint outlinePoint, int nrOfFaces)
-	{
-		TriangulationPoint basePoint1 = point1.getPoint();
-		TriangulationPoint basePoint2 = point2.getPoint();
-		Vector3D outlinePoint3D = new Vector3D(outlinePoint.getX(), outlinePoint.getY(), 0.0);
-		Vector3D basePoint3D1 = new Vector3D(basePoint1.getX(), basePoint1.getY(), 0.0);
-		Vector3D basePoint3D2 = new Vector3D(basePoint2.getX(), basePoint2.getY(), 0.0);
-		double height1 = point1.getZ();
-		double height2 = point2.getZ();
-		double width1 = Util.distance(point1.getPoint(), outlinePoint);
-		double width2 = Util.distance(point2.getPoint(), outlinePoint);
-		double degreesPerStep = 90.0/nrOfFaces;
-		double angleInZPlane1 = Util.getAngle(basePoint3D1.x, basePoint3D1.y, outlinePoint3D.x, outlinePoint3D.y);
-		double angleInZPlane2 = Util.getAngle(basePoint3D2.x, basePoint3D2.y, outlinePoint3D.x, outlinePoint3D.y);
-		
-		for(int i=0; i<nrOfFaces; i++)
-		{
-			double degA1 = i*degreesPerStep;
-			double angleA1 = Math.toRadians(degA1);
-			double baseLengthA1 = Math.cos(angleA1)*width1;
-			double deltaXA1 = Math.cos(angleInZPlane1)*baseLengthA1;
-			double deltaYA1 = Math.sin(angleInZPlane1)*baseLengthA1;
-			double deltaZA1 = Math.sin(angleA1)*height1;
-			
-			double degB1 = (i+1)*degreesPerStep;
-			double angleB1 = Math.toRadians(degB1);
-			double baseLengthB1 = Math.cos(angleB1)*width1;
-			double deltaXB1 = Math.cos(angleInZPlane1)*baseLengthB1;
-			double deltaYB1 = Math.sin(angleInZPlane1)*baseLengthB1;
-			double deltaZB1 = Math.sin(angleB1)*height1;
-			
-			double degA2 = i*degreesPerStep;
-			double angleA2 = Math.toRadians(degA2);
-			double baseLengthA2 = Math.cos(angleA2)*width2;
-			double deltaXA2 = Math.cos(angleInZPlane2)*baseLengthA2;
-			double deltaYA2 = Math.sin(angleInZPlane2)*baseLengthA2;
-			double deltaZA2 = Math.sin(angleA2)*height2;
-			
-			double degB2 = (i+1)*degreesPerStep;
-			double angleB2 = Math.toRadians(degB2);
-			double baseLengthB2 = Math.cos(angleB2)*width2;
-			double deltaXB2 = Math.cos(angleInZPlane2)*baseLengthB2;
-			double deltaYB2 = Math.sin(angleInZPlane2)*baseLengthB2;
-			double deltaZB2 = Math.sin(angleB2)*height2;
-			
-			Vector3D pA1 = new Vector3D(basePoint3D1.x+deltaXA1,basePoint3D1.y+deltaYA1,basePoint3D1.z+deltaZA1);
-			Vector3D pB1 = new Vector3D(basePoint3D1.x+deltaXB1,basePoint3D1.y+deltaYB1,basePoint3D1.z+deltaZB1);
-			Vector3D pA2 = new Vector3D(basePoint3D2.x+deltaXA2,basePoint3D2.y+deltaYA2,basePoint3D2.z+deltaZA2);
-			Vector3D pB2 = new Vector3D(basePoint3D2.x+deltaXB2,basePoint3D2.y+deltaYB2,basePoint3D2.z+deltaZB2);
-			
-			Triangle triangle1 = new Triangle(pA1, pA2, pB2);
-			Triangle triangle2 = new Triangle(pA1, pB1, pB2);
-			mesh.add(triangle1);
-			mesh.add(triangle2);
-		}
-	}
-	
-	private void createQuarterOval(ChordalAxisPoint point, TriangulationPoint outlinePoint1, TriangulationPoint outlinePoint2, int nrOfFaces)
-	{
-		TriangulationPoint basePoint = point.getPoint();
-		Vector3D outlinePoint3D1 = new Vector3D(outlinePoint1.getX(), outlinePoint1.getY(), 0.0);
-		Vector3D outlinePoint3D2 = new Vector3D(outlinePoint2.getX(), outlinePoint2.getY(), 0.0);
-		Vector3D basePoint3D = new Vector3D(basePoint.getX(), basePoint.getY(), 0.0);
-		double height = point.getZ();
-		double width1 = Util.distance(point.getPoint(), outlinePoint1);
-		double width2 = Util.distance(point.getPoint(), outlinePoint2);
-		double degreesPerStep = 90.0/nrOfFaces;
-		double angleInZPlane1 = Util.getAngle(basePoint3D.x, basePoint3D.y, outlinePoint3D1.x, outlinePoint3D1.y);
-		double angleInZPlane2 = Util.getAngle(basePoint3D.x, basePoint3D.y, outlinePoint3D2.x, outlinePoint3D2.y);
-		
-		for(int i=0; i<nrOfFaces; i++)
-		{
-			double degA1 = i*degreesPerStep;
-			double angleA1 = Math.toRadians(degA1);
-			double baseLengthA1 = Math.cos(angleA1)*width1;
-			double deltaXA1 = Math.cos(angleInZPlane1)*baseLengthA1;
-			double deltaYA1 = Math.sin(angleInZPlane1)*baseLengthA1;
-			double deltaZA1 = Math.sin(angleA1)*height;
-			
-			double degB1 = (i+1)*degreesPerStep;
-			double angleB1 = Math.toRadians(degB1);
-			double baseLengthB1 = Math.cos(angleB1)*width1;
-			double deltaXB1 = Math.cos(angleInZPlane1)*baseLengthB1;
-			double deltaYB1 = Math.sin(angleInZPlane1)*baseLengthB1;
-			double deltaZB1 = Math.sin(angleB1)*height;
-			
-			double degA2 = i*degreesPerStep;
-			double angleA2 = Math.toRadians(degA2);
-			double baseLengthA2 = Math.cos(angleA2)*width2;
-			double deltaXA2 = Math.cos(angleInZPlane2)*baseLengthA2;
-			double deltaYA2 = Math.sin(angleInZPlane2)*baseLengthA2;
-			double deltaZA2 = Math.sin(angleA2)*height;
-			
-			double degB2 = (i+1)*degreesPerStep;
-			double angleB2 = Math.toRadians(degB2);
-			double baseLengthB2 = Math.cos(angleB2)*width2;
-			double deltaXB2 = Math.cos(angleInZPlane2)*baseLengthB2;
-			double deltaYB2 = Math.sin(angleInZPlane2)*baseLengthB2;
-			double deltaZB2 = Math.sin(angleB2)*height;
-			
-			Vector3D pA1 = new Vector3D(basePoint3D.x+deltaXA1,basePoint3D.y+deltaYA1,basePoint3D.z+deltaZA1);
-			Vector3D pB1 = new Vector3D(basePoint3D.x+deltaXB1,basePoint3D.y+deltaYB1,basePoint3D.z+deltaZB1);
-			Vector3D pA2 = new Vector3D(basePoint3D.x+deltaXA2,basePoint3D.y+deltaYA2,basePoint3D.z+deltaZA2);
-			Vector3D pB2 = new Vector3D(basePoint3D.x+deltaXB2,basePoint3D.y+deltaYB2,basePoint3D.z+deltaZB2);
-			
-			Triangle triangle1 = new Triangle(pA1, pA2, pB2);
-			Triangle triangle2 = new Triangle(pA1, pB1, pB2);
-			mesh.add(triangle1);
-			mesh.add(triangle2);
-		}
+		pipeline.mesh = mesh;
+		recordStageTime(Stage.MESH, start);
+		recordSize("mesh.faces", mesh.getTriangleCount());
+		pipeline.meshParameters = parameters;
+		pipeline.validStages.add(Stage.MESH);
+	}
+	
+	/**
+	 * Looks up meshes in the cache before running any of the stages, and adds
+	 * the meshes it generates. On a hit only the mesh is valid; the stages
+	 * before it run when they are asked for. Null turns caching off.
+	 */
+	public void setMeshCache(MeshCache meshCache)
+	{
+		this.meshCache = meshCache;
+	}
+	
+	//Everything besides the drawn outline that the mesh depends on
+	private String getMeshParameters(String meshParameters)
+	{
+		String parameters = meshParameters + " raise=" + RAISE_CONSTANT;
+		if(simplifier != null)
+			parameters += " tolerance=" + simplifier.getTolerance() + " spacing=" + simplifier.getSpacing();
+		return parameters;
+	}
+	
+	private IndexedMesh getCachedMesh(String parameters)
+	{
+		if(meshCache == null || !closed || base == null)
+			return null;
+		IndexedMesh cached = meshCache.get(getOutlineKey(), parameters);
+		count(cached != null ? "mesh.cache.hits" : "mesh.cache.misses");
+		return cached;
+	}
+	
+	private void cacheMesh(String parameters, IndexedMesh mesh)
+	{
+		if(meshCache != null)
+			meshCache.put(getOutlineKey(), parameters, mesh);
+	}
+	
+	//The drawn outline does not change while the pipeline is current, so its hash is kept there
+	private String getOutlineKey()
+	{
+		if(pipeline.outlineKey == null)
+			pipeline.outlineKey = MeshCache.getOutlineKey(base.getPoints());
+		return pipeline.outlineKey;
+	}
+	
+	/**
+	 * When set, createMesh generates the quarter ovals of different chordal
+	 * axis points concurrently. The mesh is the same as when generated
+	 * sequentially.
+	 */
+	public void setParallelMeshGeneration(boolean parallelMeshGeneration)
+	{
+		this.parallelMeshGeneration = parallelMeshGeneration;
 	}
 
 	private void lowerChordalAxis()
 	{
-		this.loweredChordalAxis = raisedChordalAxis.clone();
-		for (ChordalAxisPoint point : loweredChordalAxis.getPoints())
+		pipeline.loweredChordalAxis = pipeline.raisedChordalAxis.clone();
+		for (ChordalAxisPoint point : pipeline.loweredChordalAxis.getPoints())
 		{
 			point.setZ(-point.getZ());
 		}
@@ -395,8 +705,8 @@ public class SketchModel
 			pos.add(sleeve.points[2]);
 		else
 			neg.add(sleeve.points[2]);
-		ChordalAxisPoint p = prunedChordalAxis.getPoint(chordalEdge.p);
-		ChordalAxisPoint q = prunedChordalAxis.getPoint(chordalEdge.q);
+		ChordalAxisPoint p = pipeline.prunedChordalAxis.getPoint(chordalEdge.p);
+		ChordalAxisPoint q = pipeline.prunedChordalAxis.getPoint(chordalEdge.q);
 		if(pos.size()==2)
 		{
 			double p0 = Math.abs(Util.distance(new DTSweepConstraint(pos.get(0), neg.get(0)),chordalEdge.p));
@@ -441,7 +751,7 @@ public class SketchModel
 		TriangulationPoint center = junction.centroid();
 		TriangulationPoint[] points = junction.points;
 		
-		ChordalAxisPoint axisPoint = prunedChordalAxis.getPoint(center);
+		ChordalAxisPoint axisPoint = pipeline.prunedChordalAxis.getPoint(center);
 		axisPoint.addOutlinePoint(points[0]);
 		axisPoint.addOutlinePoint(points[1]);
 		axisPoint.addOutlinePoint(points[2]);
@@ -459,8 +769,8 @@ public class SketchModel
 	{
 		TriangulationPoint[] midpoints = getMidPoints(triangle);
 		
-		boolean a = prunedChordalAxis.contains(midpoints[0]);
-		boolean b = prunedChordalAxis.contains(midpoints[1]);
+		boolean a = pipeline.prunedChordalAxis.contains(midpoints[0]);
+		boolean b = pipeline.prunedChordalAxis.contains(midpoints[1]);
 //		boolean c = prunedChordalAxis.contains(midpoints[2]);
 		if(a && b)
 		{
@@ -472,167 +782,187 @@ public class SketchModel
 		}
 	}
 	
-	private boolean containAnyPoint(DelaunayTriangle triangle, List<TriangulationPoint> points)
-	{
-		for (TriangulationPoint point : points)
-		{
-			if(containsPoint(triangle, point))
-				return true;
-		}
-		return false;
-	}
-	
-	private boolean containsPoint(DelaunayTriangle triangle, TriangulationPoint point)
+	private boolean containsAxisPoint(DelaunayTriangle triangle)
 	{
-		if(Util.distance(triangle.points[0], point)<Util.THRESHOLD)
-			return true;
-		if(Util.distance(triangle.points[1], point)<Util.THRESHOLD)
-			return true;
-		if(Util.distance(triangle.points[2], point)<Util.THRESHOLD)
-			return true;
-		return false;
+		return pipeline.prunedChordalAxis.contains(triangle.points[0])
+				|| pipeline.prunedChordalAxis.contains(triangle.points[1])
+				|| pipeline.prunedChordalAxis.contains(triangle.points[2]);
 	}
 	
 	private void pruneCurrentTerminal()
 	{
-		prunedTriangles.remove(currentTerminal);
-		TriangulationPoint external = getExternalPoint(currentTerminal);
-		prunedChordalAxis.removePoint(external);
-		currentTriangle = getNextTriangle(currentTerminal, null);
-		currentEdge = getOppositeEdge(currentTerminal, external);
+		pruneTriangle(pipeline.currentTerminal);
+		TriangulationPoint external = getExternalPoint(pipeline.currentTerminal);
+		pipeline.prunedChordalAxis.removePoint(external);
+		pipeline.currentTriangle = getNextTriangle(pipeline.currentTerminal, null);
+		pipeline.currentEdge = getOppositeEdge(pipeline.currentTerminal, external);
 		updateCircle();
-		pointsToCheck.clear();
-		pointsToCheck.add(external);
+		pipeline.pointsToCheck.clear();
+		pipeline.pointsToCheck.add(external);
+		pipeline.pointsToCheck.settle(pipeline.currentEdge);
 	}
 	
 	private void pruneCurrentEdge()
 	{
-		if(isSleeve(currentTriangle))
+		if(isSleeve(pipeline.currentTriangle))
 		{
-			if(allPointsInsideRadius(currentEdge, pointsToCheck))
+			if(pipeline.pointsToCheck.insideCircle(pipeline.currentEdge))
 			{
-				prunedTriangles.remove(currentTriangle);
-				TriangulationPoint midpoint = Util.getMidpoint(currentEdge.p, currentEdge.q);
-				prunedChordalAxis.removePoint(midpoint);
-				pointsToCheck.add(currentEdge.p);
-				pointsToCheck.add(currentEdge.q);
-				DelaunayTriangle nextTriangle = getOppositeTriangle(currentEdge, currentTriangle);
-				DTSweepConstraint nextEdge = Util.getSharedEdge(currentTriangle, nextTriangle);
-				currentTriangle = nextTriangle;
-				currentEdge = nextEdge;
+				pruneTriangle(pipeline.currentTriangle);
+				TriangulationPoint midpoint = Util.getMidpoint(pipeline.currentEdge.p, pipeline.currentEdge.q);
+				pipeline.prunedChordalAxis.removePoint(midpoint);
+				pipeline.pointsToCheck.add(pipeline.currentEdge.p);
+				pipeline.pointsToCheck.add(pipeline.currentEdge.q);
+				DelaunayTriangle nextTriangle = getOppositeTriangle(pipeline.currentEdge, pipeline.currentTriangle);
+				DTSweepConstraint nextEdge = Util.getSharedEdge(pipeline.currentTriangle, nextTriangle);
+				pipeline.currentTriangle = nextTriangle;
+				pipeline.currentEdge = nextEdge;
+				pipeline.pointsToCheck.settle(nextEdge);
 				updateCircle();
 			}
 			else
 			{
-				TriangulationPoint midpoint = Util.getMidpoint(currentEdge.p, currentEdge.q);
-				fanOut(midpoint, currentEdge.p, currentEdge.q, pointsToCheck);
+				TriangulationPoint midpoint = Util.getMidpoint(pipeline.currentEdge.p, pipeline.currentEdge.q);
+				fanOut(midpoint, pipeline.currentEdge.p, pipeline.currentEdge.q, pipeline.pointsToCheck.getPoints());
 				selectNextTerminal();
 			}
 		}
-		else if(isJunction(currentTriangle))
+		else if(isJunction(pipeline.currentTriangle))
 		{
-			prunedTriangles.remove(currentTriangle);
-			TriangulationPoint remainingPoint = Util.getRemainingPoint(currentTriangle, currentEdge);
-			TriangulationPoint midpoint = Util.getMidpoint(currentEdge.p, currentEdge.q);
-			prunedChordalAxis.removePoint(midpoint);
-			TriangulationPoint center = currentTriangle.centroid();
-			fanOut(center, currentEdge.p, currentEdge.q, pointsToCheck);
-			ChordalAxisPoint axisPoint = prunedChordalAxis.getPoint(center);
+			pruneTriangle(pipeline.currentTriangle);
+			TriangulationPoint remainingPoint = Util.getRemainingPoint(pipeline.currentTriangle, pipeline.currentEdge);
+			TriangulationPoint midpoint = Util.getMidpoint(pipeline.currentEdge.p, pipeline.currentEdge.q);
+			pipeline.prunedChordalAxis.removePoint(midpoint);
+			TriangulationPoint center = pipeline.currentTriangle.centroid();
+			fanOut(center, pipeline.currentEdge.p, pipeline.currentEdge.q, pipeline.pointsToCheck.getPoints());
+			ChordalAxisPoint axisPoint = pipeline.prunedChordalAxis.getPoint(center);
 			axisPoint.addOutlinePoint(remainingPoint);
 			selectNextTerminal();
 		}
-		else if(isTerminal(currentTriangle))
+		else if(isTerminal(pipeline.currentTriangle))
 		{
-			TriangulationPoint midpoint = Util.getMidpoint(currentEdge.p, currentEdge.q);
-			fanOut(midpoint, currentEdge.p, currentEdge.q, pointsToCheck);
+			TriangulationPoint midpoint = Util.getMidpoint(pipeline.currentEdge.p, pipeline.currentEdge.q);
+			fanOut(midpoint, pipeline.currentEdge.p, pipeline.currentEdge.q, pipeline.pointsToCheck.getPoints());
 			selectNextTerminal();
 		}
 		else
 		{
 			System.err.println("Could not determine type of triangle");
+			count("errors.triangle_type");
 		}
 	}
 	
 	private void selectNextTerminal()
 	{
-		int index = t.indexOf(currentTerminal);
-		if(index==t.size()-1)
+		if(pipeline.terminalIndex==pipeline.t.size()-1)
 		{
-			pruned = true;
-			currentTerminal = null;
-			currentTriangle = null;
-			currentEdge = null;
+			pipeline.pruned = true;
+			pipeline.currentTerminal = null;
+			pipeline.currentTriangle = null;
+			pipeline.currentEdge = null;
 			updateCircle();
 		}
 		else
 		{
-			currentTerminal = t.get(index+1);
+			pipeline.terminalIndex++;
+			pipeline.currentTerminal = pipeline.t.get(pipeline.terminalIndex);
 			pruneCurrentTerminal();
 		}
 	}
 	
+	//Pruned triangles are only marked, they are taken out of the list when it is needed
+	private void pruneTriangle(DelaunayTriangle triangle)
+	{
+		pipeline.removedTriangles.add(triangle);
+	}
+	
+	private void removePrunedTriangles()
+	{
+		if(pipeline.removedTriangles.isEmpty())
+			return;
+		List<DelaunayTriangle> remaining = new ArrayList<DelaunayTriangle>(pipeline.prunedTriangles.size());
+		for (DelaunayTriangle triangle : pipeline.prunedTriangles)
+		{
+			if(!pipeline.removedTriangles.contains(triangle))
+				remaining.add(triangle);
+		}
+		pipeline.prunedTriangles = remaining;
+		pipeline.removedTriangles.clear();
+	}
+	
 	private void updateCircle()
 	{
-		if(currentEdge==null)
-			circleCenter = null;
+		if(pipeline.currentEdge==null)
+			pipeline.circleCenter = null;
 		else
 		{
-			circleCenter=Util.getMidpoint(currentEdge.p, currentEdge.q);
-			circleRadius = Util.distance(currentEdge.p, currentEdge.q)/2.0;
+			pipeline.circleCenter=Util.getMidpoint(pipeline.currentEdge.p, pipeline.currentEdge.q);
+			pipeline.circleRadius = Util.distance(pipeline.currentEdge.p, pipeline.currentEdge.q)/2.0;
 		}
 	}
 	
 	private boolean isTerminal(DelaunayTriangle triangle)
 	{
-		return t.contains(triangle);
+		return getType(triangle) == TERMINAL;
 	}
 	
 	private boolean isSleeve(DelaunayTriangle triangle)
 	{
-		return s.contains(triangle);
+		return getType(triangle) == SLEEVE;
 	}
 	
 	private boolean isJunction(DelaunayTriangle triangle)
 	{
-		return j.contains(triangle);
+		return getType(triangle) == JUNCTION;
 	}
 	
-	private boolean allPointsInsideRadius(DTSweepConstraint edge, List<TriangulationPoint> points)
+	//Triangles created during pruning (fans) have no type
+	private int getType(DelaunayTriangle triangle)
 	{
-		TriangulationPoint midpoint = Util.getMidpoint(edge.p, edge.q);
-		double radius = Util.distance(edge.p, edge.q) / 2.0;
-		return allPointsInsideRadius(midpoint, radius, points);
+		Integer type = pipeline.triangleTypes.get(triangle);
+		if(type == null)
+			return 0;
+		return type;
 	}
 	
-	private boolean allPointsInsideRadius(TriangulationPoint center, double radius, List<TriangulationPoint> points)
+	private void copyTriangles(List<DelaunayTriangle> original, List<DelaunayTriangle> source)
 	{
-		for (TriangulationPoint point : points)
+		for (DelaunayTriangle triangle : original)
 		{
-			if(Util.distance(center, point) > radius)
-				return false;
+			source.add(triangle);
 		}
-		return true;
 	}
-	
-	private void copyTriangles(List<DelaunayTriangle> original, List<DelaunayTriangle> source)
+
+	private void calculateOutlineIndices()
 	{
-		for (DelaunayTriangle triangle : original)
+		pipeline.outlineIndices.clear();
+		List<TriangulationPoint> points = pipeline.polygon.getPoints();
+		for (int i = 0; i < points.size(); i++)
 		{
-			source.add(triangle);
+			pipeline.outlineIndices.put(points.get(i), i);
 		}
 	}
+	
+	private int getOutlineIndex(TriangulationPoint point)
+	{
+		Integer index = pipeline.outlineIndices.get(point);
+		if(index == null)
+			return pipeline.polygon.getPoints().indexOf(point);
+		return index;
+	}
 
 	private void calculateTriangleTypes()
 	{
-		for (DelaunayTriangle triangle : base.getTriangles())
+		for (DelaunayTriangle triangle : pipeline.triangles)
 		{
 			int nrOfNeighbours = getNumberOfInternalNeighbours(triangle);
-			if (nrOfNeighbours == 1)
-				t.add(triangle);
-			else if (nrOfNeighbours == 2)
-				s.add(triangle);
-			else if (nrOfNeighbours == 3)
-				j.add(triangle);
+			if (nrOfNeighbours == TERMINAL)
+				pipeline.t.add(triangle);
+			else if (nrOfNeighbours == SLEEVE)
+				pipeline.s.add(triangle);
+			else if (nrOfNeighbours == JUNCTION)
+				pipeline.j.add(triangle);
+			pipeline.triangleTypes.put(triangle, nrOfNeighbours);
 		}
 	}
 
@@ -722,7 +1052,7 @@ public class SketchModel
 		ArrayList<ChordalAxisPoint> points = new ArrayList<ChordalAxisPoint>();
 		
 		//add points to 'points'
-		DelaunayTriangle terminal = t.get(0);
+		DelaunayTriangle terminal = pipeline.t.get(0);
 		TriangulationPoint startPoint = getExternalPoint(terminal);
 		ChordalAxisPoint start = new ChordalAxisPoint(startPoint);
 		points.add(start);
@@ -732,85 +1062,95 @@ public class SketchModel
 		ChordalAxisPoint next = new ChordalAxisPoint(midpoints[0]);
 		start.connect(next);
 		points.add(next);
-		considered.add(terminal);
+		pipeline.considered.add(terminal);
 		DelaunayTriangle[] neighbours = this.getInternalNeighbours(terminal);
 		growChordalAxis(next,neighbours[0],points);
-		chordalAxis = new ChordalAxis(points);	
+		pipeline.chordalAxis = new ChordalAxis(points);	
 	}
 	
-	private ArrayList<ChordalAxisPoint> growChordalAxis(ChordalAxisPoint current, DelaunayTriangle neighbour, ArrayList<ChordalAxisPoint> points)
+	//Walks the triangles depth first with an explicit stack, so long sketches cannot overflow the call stack
+	private ArrayList<ChordalAxisPoint> growChordalAxis(ChordalAxisPoint start, DelaunayTriangle startNeighbour, ArrayList<ChordalAxisPoint> points)
 	{
-		considered.add(neighbour);
-		TriangulationPoint[] midpoints = getMidPoints(neighbour);
-		if(t.contains(neighbour))
+		ArrayDeque<Branch> branches = new ArrayDeque<Branch>();
+		branches.push(new Branch(start, startNeighbour));
+		while(!branches.isEmpty())
 		{
-			TriangulationPoint point = getExternalPoint(neighbour);
-			ChordalAxisPoint newPoint = new ChordalAxisPoint(point);
-			current.connect(newPoint);
-			points.add(newPoint);
-		}
-		else if(s.contains(neighbour))
-		{
-			ChordalAxisPoint newPoint;
-			if(Util.distance(current.getPoint(), midpoints[0]) > Util.THRESHOLD)
-			{
-				newPoint = new ChordalAxisPoint(midpoints[0]);
-			}
-			else
+			Branch branch = branches.pop();
+			ChordalAxisPoint current = branch.point;
+			DelaunayTriangle neighbour = branch.triangle;
+			pipeline.considered.add(neighbour);
+			TriangulationPoint[] midpoints = getMidPoints(neighbour);
+			if(isTerminal(neighbour))
 			{
-				newPoint = new ChordalAxisPoint(midpoints[1]);
+				TriangulationPoint point = getExternalPoint(neighbour);
+				ChordalAxisPoint newPoint = new ChordalAxisPoint(point);
+				current.connect(newPoint);
+				points.add(newPoint);
 			}
-			current.connect(newPoint);
-			points.add(newPoint);
-			DelaunayTriangle[] allNeighbours = getInternalNeighbours(neighbour);
-			DelaunayTriangle[] neighbours = discardConsideredNeighbours(allNeighbours);
-			//We know there is only one unconsidered neighbour
-			growChordalAxis(newPoint, neighbours[0],points);
-		}
-		else if(j.contains(neighbour))
-		{
-			ChordalAxisPoint center = new ChordalAxisPoint(new PolygonPoint(neighbour.centroid().getX(),neighbour.centroid().getY()));
-			current.connect(center);
-			points.add(center);
-			DelaunayTriangle[] allNeighbours = getInternalNeighbours(neighbour);
-			DelaunayTriangle[] neighbours = discardConsideredNeighbours(allNeighbours);
-			int index1 = -1;
-			int index2 = -1;
-			for (int i = 0; i < 3; i++)
+			else if(isSleeve(neighbour))
 			{
-				if(Util.distance(current.getPoint(), midpoints[i]) > Util.THRESHOLD)
+				ChordalAxisPoint newPoint;
+				if(Util.distance(current.getPoint(), midpoints[0]) > Util.THRESHOLD)
 				{
-					if(index1 == -1)
-						index1 = i;
-					else if(index2 == -1)
-						index2 = i;
+					newPoint = new ChordalAxisPoint(midpoints[0]);
 				}
+				else
+				{
+					newPoint = new ChordalAxisPoint(midpoints[1]);
+				}
+				current.connect(newPoint);
+				points.add(newPoint);
+				DelaunayTriangle[] allNeighbours = getInternalNeighbours(neighbour);
+				DelaunayTriangle[] neighbours = discardConsideredNeighbours(allNeighbours);
+				//We know there is only one unconsidered neighbour
+				branches.push(new Branch(newPoint, neighbours[0]));
 			}
-			ChordalAxisPoint newPoint1 = new ChordalAxisPoint(midpoints[index1]);
-			ChordalAxisPoint newPoint2 = new ChordalAxisPoint(midpoints[index2]);
-			center.connect(newPoint1);
-			center.connect(newPoint2);
-			points.add(newPoint1);
-			points.add(newPoint2);
-			
-			//We know there are two unconsidered neighbour
-			
-			boolean connectNeighbour1ToMidpoint1 = false;
-			TriangulationPoint[] neighbour1Midpoints = getMidPoints(neighbours[0]);
-			for (int i = 0; i < neighbour1Midpoints.length; i++)
-			{
-				if(Util.distance(newPoint1.getPoint(),neighbour1Midpoints[i]) < Util.THRESHOLD)
-					connectNeighbour1ToMidpoint1 = true;
-			}
-			if(connectNeighbour1ToMidpoint1)
-			{
-				growChordalAxis(newPoint1, neighbours[0],points);
-				growChordalAxis(newPoint2, neighbours[1],points);
-			}
-			else
+			else if(isJunction(neighbour))
 			{
-				growChordalAxis(newPoint1, neighbours[1],points);
-				growChordalAxis(newPoint2, neighbours[0],points);
+				ChordalAxisPoint center = new ChordalAxisPoint(new PolygonPoint(neighbour.centroid().getX(),neighbour.centroid().getY()));
+				current.connect(center);
+				points.add(center);
+				DelaunayTriangle[] allNeighbours = getInternalNeighbours(neighbour);
+				DelaunayTriangle[] neighbours = discardConsideredNeighbours(allNeighbours);
+				int index1 = -1;
+				int index2 = -1;
+				for (int i = 0; i < 3; i++)
+				{
+					if(Util.distance(current.getPoint(), midpoints[i]) > Util.THRESHOLD)
+					{
+						if(index1 == -1)
+							index1 = i;
+						else if(index2 == -1)
+							index2 = i;
+					}
+				}
+				ChordalAxisPoint newPoint1 = new ChordalAxisPoint(midpoints[index1]);
+				ChordalAxisPoint newPoint2 = new ChordalAxisPoint(midpoints[index2]);
+				center.connect(newPoint1);
+				center.connect(newPoint2);
+				points.add(newPoint1);
+				points.add(newPoint2);
+				
+				//We know there are two unconsidered neighbour
+				
+				boolean connectNeighbour1ToMidpoint1 = false;
+				TriangulationPoint[] neighbour1Midpoints = getMidPoints(neighbours[0]);
+				for (int i = 0; i < neighbour1Midpoints.length; i++)
+				{
+					if(Util.distance(newPoint1.getPoint(),neighbour1Midpoints[i]) < Util.THRESHOLD)
+						connectNeighbour1ToMidpoint1 = true;
+				}
+				//The branch pushed last is grown first
+				if(connectNeighbour1ToMidpoint1)
+				{
+					branches.push(new Branch(newPoint2, neighbours[1]));
+					branches.push(new Branch(newPoint1, neighbours[0]));
+				}
+				else
+				{
+					branches.push(new Branch(newPoint2, neighbours[0]));
+					branches.push(new Branch(newPoint1, neighbours[1]));
+				}
 			}
 		}
 		return points;
@@ -828,6 +1168,7 @@ public class SketchModel
 		if (index == -1)
 		{
 			System.err.println("Could not find external point on terminal triangle");
+			count("errors.external_point");
 			return null;
 		}
 		else
@@ -841,14 +1182,14 @@ public class SketchModel
 		int unconsidered = neighbours.length;
 		for (int i = 0; i < neighbours.length; i++)
 		{
-			if(considered.contains(neighbours[i]))
+			if(pipeline.considered.contains(neighbours[i]))
 				unconsidered--;
 		}
 		DelaunayTriangle[] result = new DelaunayTriangle[unconsidered];
 		int index = 0;
 		for (int i = 0; i < neighbours.length; i++)
 		{
-			if(!considered.contains(neighbours[i]))
+			if(!pipeline.considered.contains(neighbours[i]))
 			{
 				result[index] = neighbours[i];
 				index++;
@@ -857,20 +1198,15 @@ public class SketchModel
 		return result;
 	}
 
+	//An edge is on the outline when its points are neighbours in the outline
 	private boolean isInnerEdge(TriangulationPoint p1, TriangulationPoint p2)
 	{
-		List<TriangulationPoint> points = base.getPoints();
-		int size = points.size();
-		for (int i = 0; i < base.getPoints().size(); i++)
-		{
-			TriangulationPoint p1base = points.get(i);
-			TriangulationPoint p2base = points.get((i + 1) % size);
-			if ((Util.distance(p1base, p1) < Util.THRESHOLD && Util.distance(p2base, p2) < Util.THRESHOLD)
-					|| (Util.distance(p1base, p2) < Util.THRESHOLD && Util.distance(p2base, p1) < Util.THRESHOLD))
-				return false;
-		}
-
-		return true;
+		Integer index1 = pipeline.outlineIndices.get(p1);
+		Integer index2 = pipeline.outlineIndices.get(p2);
+		if(index1 == null || index2 == null)
+			return true;
+		int difference = Math.abs(index1 - index2);
+		return difference != 1 && difference != pipeline.outlineIndices.size() - 1;
 	}
 	
 	private DelaunayTriangle getOppositeTriangle(DTSweepConstraint edge, DelaunayTriangle current)
@@ -904,6 +1240,7 @@ public class SketchModel
 		{
 			//No problem, current triangle will not be pruned since it is a junction triangle
 			System.err.println("Junction triangle should not be pruned");
+			count("errors.junction_pruned");
 			next = neighbours[0];
 		}
 		return next;
@@ -912,11 +1249,11 @@ public class SketchModel
 	private void fanOut(TriangulationPoint midpoint, TriangulationPoint a, TriangulationPoint b, List<TriangulationPoint> points)
 	{
 		List<TriangulationPoint> fanPoints = getIntermediatePoints(a, b);
-		ChordalAxisPoint axisPoint = prunedChordalAxis.getPoint(midpoint);
+		ChordalAxisPoint axisPoint = pipeline.prunedChordalAxis.getPoint(midpoint);
 		for (int i = 0; i < fanPoints.size()-1; i++)
 		{
 			DelaunayTriangle fanTriangle = new DelaunayTriangle(midpoint, fanPoints.get(i), fanPoints.get(i+1));
-			prunedTriangles.add(fanTriangle);
+			pipeline.prunedTriangles.add(fanTriangle);
 			axisPoint.addOutlinePoint(fanPoints.get(i));
 		}
 		axisPoint.addOutlinePoint(fanPoints.get(fanPoints.size()-1));
@@ -925,11 +1262,11 @@ public class SketchModel
 	private List<TriangulationPoint> getIntermediatePoints(TriangulationPoint start, TriangulationPoint end)
 	{
 		ArrayList<TriangulationPoint> result;
-		int startIndex = base.getPoints().indexOf(start);
-		int endIndex = base.getPoints().indexOf(end);
+		int startIndex = getOutlineIndex(start);
+		int endIndex = getOutlineIndex(end);
 		
 		int distanceInside = Math.abs(endIndex-startIndex) + 1;
-		int distanceOutside = base.getPoints().size() - Math.max(startIndex,endIndex) + Math.min(startIndex,endIndex) + 1;
+		int distanceOutside = pipeline.polygon.getPoints().size() - Math.max(startIndex,endIndex) + Math.min(startIndex,endIndex) + 1;
 		boolean startIndexSmaller = Math.min(startIndex, endIndex)==startIndex;
 		if(startIndexSmaller)
 		{
@@ -960,7 +1297,7 @@ public class SketchModel
 	
 	private ArrayList<TriangulationPoint> buildList(int startIndex, int endIndex, boolean forward)
 	{
-		List<TriangulationPoint> points = base.getPoints();
+		List<TriangulationPoint> points = pipeline.polygon.getPoints();
 		ArrayList<TriangulationPoint> result = new ArrayList<TriangulationPoint>();
 		int index = startIndex;
 		while(index!=endIndex)
@@ -1030,55 +1367,63 @@ public class SketchModel
 		return result;
 	}
 
+	public int getPointCount()
+	{
+		if (base == null)
+			return (point1 == null ? 0 : 1) + (point2 == null ? 0 : 1);
+		return base.getPoints().size();
+	}
+
 	public List<DelaunayTriangle> getTriangles()
 	{
-		return triangles;
+		return pipeline.triangles;
 	}
 	
 	public List<DelaunayTriangle> getPrunedTriangles()
 	{
-		return prunedTriangles;
+		removePrunedTriangles();
+		return pipeline.prunedTriangles;
 	}
 	
 	public List<DelaunayTriangle> getSubdividedTriangles()
 	{
-		return subdividedTriangles;
+		return pipeline.subdividedTriangles;
 	}
 	
 	public ChordalAxis getPrunedChordalAxis()
 	{
-		return prunedChordalAxis;
+		return pipeline.prunedChordalAxis;
 	}
 	
 	public ChordalAxis getChordalAxis()
 	{
-		return chordalAxis;
+		return pipeline.chordalAxis;
 	}
 
 	public List<TriangulationPoint> getChordalAxisPoints()
 	{
-		if(chordalAxis!=null)
-			return chordalAxis.getTriangulationPoints();
+		if(pipeline.chordalAxis!=null)
+			return pipeline.chordalAxis.getTriangulationPoints();
 		else
 			return null;
 	}
 	
 	public List<TriangulationPoint> getPrunedChordalAxisPoints()
 	{
-		if(prunedChordalAxis!=null)
-			return prunedChordalAxis.getTriangulationPoints();
+		if(pipeline.prunedChordalAxis!=null)
+			return pipeline.prunedChordalAxis.getTriangulationPoints();
 		else
 			return null;
 	}
 	
 	public ChordalAxis getRaisedChordalAxis()
 	{
-		return raisedChordalAxis;
+		return pipeline.raisedChordalAxis;
 	}
 	
 	public ChordalAxis getLoweredChordalAxis()
 	{
-		return loweredChordalAxis;
+		return pipeline.loweredChordalAxis;
 	}
 
 	public boolean isClosed()
@@ -1088,31 +1433,422 @@ public class SketchModel
 
 	public boolean isPruned()
 	{
-		return pruned;
+		return pipeline.pruned;
 	}
 	
 	public TriangulationPoint getCircleCenter()
 	{
-		return circleCenter;
+		return pipeline.circleCenter;
 	}
 	
 	public double getCircleRadius()
 	{
-		return circleRadius;
+		return pipeline.circleRadius;
 	}
 	
 	public TriangulationPoint getEdgePoint1()
 	{
-		return currentEdge.p;
+		return pipeline.currentEdge.p;
 	}
 	
 	public TriangulationPoint getEdgePoint2()
 	{
-		return currentEdge.q;
+		return pipeline.currentEdge.q;
 	}
 	
-	public ArrayList<Triangle> getMesh()
+	public IndexedMesh getMesh()
 	{
-		return mesh;
+		return pipeline.mesh;
+	}
+	
+	//A chordal axis point and the triangle the axis grows into from there
+	private static class Branch
+	{
+		private final ChordalAxisPoint point;
+		private final DelaunayTriangle triangle;
+		
+		private Branch(ChordalAxisPoint point, DelaunayTriangle triangle)
+		{
+			this.point = point;
+			this.triangle = triangle;
+		}
+	}
+	
+	//Follows pruneCurrentTerminal and pruneCurrentEdge for one terminal, but only records the changes
+	private class BranchWalk extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private final DelaunayTriangle terminal;
+		private final List<DelaunayTriangle> prunedTriangles = new ArrayList<DelaunayTriangle>();
+		private final List<TriangulationPoint> prunedAxisPoints = new ArrayList<TriangulationPoint>();
+		private final BranchPoints pointsToCheck = new BranchPoints();
+		private TriangulationPoint fanCenter;
+		private DTSweepConstraint fanEdge;
+		private TriangulationPoint junctionPoint;
+		
+		private BranchWalk(DelaunayTriangle terminal)
+		{
+			this.terminal = terminal;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			prunedTriangles.add(terminal);
+			TriangulationPoint external = getExternalPoint(terminal);
+			prunedAxisPoints.add(external);
+			DelaunayTriangle triangle = getNextTriangle(terminal, null);
+			DTSweepConstraint edge = getOppositeEdge(terminal, external);
+			pointsToCheck.add(external);
+			pointsToCheck.settle(edge);
+			while(true)
+			{
+				if(isSleeve(triangle))
+				{
+					if(pointsToCheck.insideCircle(edge))
+					{
+						prunedTriangles.add(triangle);
+						prunedAxisPoints.add(Util.getMidpoint(edge.p, edge.q));
+						pointsToCheck.add(edge.p);
+						pointsToCheck.add(edge.q);
+						DelaunayTriangle nextTriangle = getOppositeTriangle(edge, triangle);
+						edge = Util.getSharedEdge(triangle, nextTriangle);
+						triangle = nextTriangle;
+						pointsToCheck.settle(edge);
+					}
+					else
+					{
+						fanCenter = Util.getMidpoint(edge.p, edge.q);
+						fanEdge = edge;
+						return;
+					}
+				}
+				else if(isJunction(triangle))
+				{
+					prunedTriangles.add(triangle);
+					junctionPoint = Util.getRemainingPoint(triangle, edge);
+					prunedAxisPoints.add(Util.getMidpoint(edge.p, edge.q));
+					fanCenter = triangle.centroid();
+					fanEdge = edge;
+					return;
+				}
+				else if(isTerminal(triangle))
+				{
+					fanCenter = Util.getMidpoint(edge.p, edge.q);
+					fanEdge = edge;
+					return;
+				}
+				else
+				{
+					System.err.println("Could not determine type of triangle");
+					count("errors.triangle_type");
+					return;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * The outline points behind the edge a branch is pruned up to, which must
+	 * all lie inside the circle through the next edge. Points that are not on
+	 * the current edge are kept inside a bounding circle, so most edges are
+	 * tested in constant time. Only when the bounding circle sticks out are
+	 * the points checked one by one, which gives the same answer as before.
+	 */
+	private static class BranchPoints
+	{
+		//Margin for rounding, a point this close to the circle is checked exactly
+		private static final double MARGIN = 1e-9;
+		
+		private final List<TriangulationPoint> points = new ArrayList<TriangulationPoint>();
+		//Points of the current edge, they lie on the circle of the next edge
+		private final List<TriangulationPoint> recent = new ArrayList<TriangulationPoint>(4);
+		private double centerX;
+		private double centerY;
+		private double radius = -1.0;
+		
+		private List<TriangulationPoint> getPoints()
+		{
+			return points;
+		}
+		
+		private void clear()
+		{
+			points.clear();
+			recent.clear();
+			radius = -1.0;
+		}
+		
+		private void add(TriangulationPoint point)
+		{
+			points.add(point);
+			if(!recent.contains(point))
+				recent.add(point);
+		}
+		
+		//Moves the points that are not on the edge into the bounding circle
+		private void settle(DTSweepConstraint edge)
+		{
+			for (int i = recent.size() - 1; i >= 0; i--)
+			{
+				TriangulationPoint point = recent.get(i);
+				if(edge == null || (point != edge.p && point != edge.q))
+				{
+					enclose(point);
+					recent.remove(i);
+				}
+			}
+		}
+		
+		private void enclose(TriangulationPoint point)
+		{
+			if(radius < 0)
+			{
+				centerX = point.getX();
+				centerY = point.getY();
+				radius = 0.0;
+				return;
+			}
+			double distance = Math.hypot(point.getX() - centerX, point.getY() - centerY);
+			if(distance <= radius)
+				return;
+			double grown = (radius + distance) / 2.0;
+			centerX += (point.getX() - centerX) * (grown - radius) / distance;
+			centerY += (point.getY() - centerY) * (grown - radius) / distance;
+			radius = grown * (1.0 + MARGIN);
+		}
+		
+		private boolean insideCircle(DTSweepConstraint edge)
+		{
+			TriangulationPoint midpoint = Util.getMidpoint(edge.p, edge.q);
+			double edgeRadius = Util.distance(edge.p, edge.q) / 2.0;
+			for (TriangulationPoint point : recent)
+			{
+				if(Util.distance(midpoint, point) > edgeRadius)
+					return false;
+			}
+			if(radius < 0)
+				return true;
+			double distance = Math.hypot(midpoint.getX() - centerX, midpoint.getY() - centerY);
+			if(distance + radius < edgeRadius * (1.0 - MARGIN))
+				return true;
+			for (TriangulationPoint point : points)
+			{
+				if(Util.distance(midpoint, point) > edgeRadius)
+					return false;
+			}
+			return true;
+		}
+	}
+	
+	/**
+	 * Triangulates the outline on a background thread while it is being drawn.
+	 * At most one triangulation runs at a time. Outlines requested while it
+	 * runs replace each other, and only the newest one is triangulated when it
+	 * finishes, so drawing never queues up work.
+	 */
+	private static class BackgroundTriangulation implements Runnable
+	{
+		private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "Outline triangulation");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		private boolean busy = false;
+		//The outline to triangulate next, or null
+		private OutlineNode requested;
+		private OutlineSimplifier requestedSimplifier;
+		//The outline that is being triangulated, or null
+		private OutlineNode running;
+		private OutlineSimplifier runningSimplifier;
+		//The outline that was triangulated last, with the result
+		private OutlineNode finished;
+		private OutlineSimplifier finishedSimplifier;
+		private OutlineTriangulation finishedJob;
+		
+		private synchronized void request(OutlineNode outline, OutlineSimplifier simplifier)
+		{
+			requested = outline;
+			requestedSimplifier = simplifier;
+			if(!busy)
+			{
+				busy = true;
+				executor.execute(this);
+			}
+		}
+		
+		private synchronized void cancel()
+		{
+			requested = null;
+			requestedSimplifier = null;
+			finished = null;
+			finishedSimplifier = null;
+			finishedJob = null;
+		}
+		
+		/**
+		 * @return the triangulation of the outline, waiting for it if it is
+		 *         running, or null if it was not triangulated
+		 */
+		private synchronized OutlineTriangulation take(OutlineNode outline, OutlineSimplifier simplifier) throws InterruptedException
+		{
+			while(running == outline && runningSimplifier == simplifier)
+			{
+				wait();
+			}
+			OutlineTriangulation job = null;
+			if(finished == outline && finishedSimplifier == simplifier)
+				job = finishedJob;
+			//Whatever has not started yet would be triangulated directly sooner
+			cancel();
+			return job;
+		}
+		
+		@Override
+		public void run()
+		{
+			while(true)
+			{
+				OutlineNode outline;
+				OutlineSimplifier simplifier;
+				synchronized (this)
+				{
+					if(requested == null)
+					{
+						busy = false;
+						return;
+					}
+					outline = running = requested;
+					simplifier = runningSimplifier = requestedSimplifier;
+					requested = null;
+					requestedSimplifier = null;
+				}
+				//The outline is copied here rather than on the thread that draws it
+				OutlineTriangulation job = new OutlineTriangulation(OutlineNode.toList(outline), simplifier);
+				boolean completed = false;
+				try
+				{
+					job.call();
+					completed = true;
+				} finally
+				{
+					synchronized (this)
+					{
+						finished = outline;
+						finishedSimplifier = simplifier;
+						finishedJob = completed ? job : null;
+						running = null;
+						runningSimplifier = null;
+						notifyAll();
+						//An exception ends this run, the next outline gets a new one
+						if(!completed)
+						{
+							busy = requested != null;
+							if(busy)
+								executor.execute(this);
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * A node of the drawn outline, pointing back at the points drawn before it.
+	 * Adding a point creates a single node, and all states share the points
+	 * they have in common.
+	 */
+	private static class OutlineNode
+	{
+		private final PolygonPoint point;
+		private final OutlineNode previous;
+		private final int size;
+		
+		private OutlineNode(PolygonPoint point, OutlineNode previous)
+		{
+			this.point = point;
+			this.previous = previous;
+			this.size = previous == null ? 1 : previous.size + 1;
+		}
+		
+		private static List<PolygonPoint> toList(OutlineNode last)
+		{
+			int size = last == null ? 0 : last.size;
+			PolygonPoint[] points = new PolygonPoint[size];
+			for (OutlineNode node = last; node != null; node = node.previous)
+			{
+				points[--size] = node.point;
+			}
+			return new ArrayList<PolygonPoint>(Arrays.asList(points));
+		}
+	}
+	
+	private static class SketchState
+	{
+		private final OutlineNode outline;
+		private final boolean closed;
+		//The results computed for a closed outline, or null
+		private final Pipeline pipeline;
+		
+		private SketchState(OutlineNode outline, boolean closed)
+		{
+			this(outline, closed, null);
+		}
+		
+		private SketchState(OutlineNode outline, boolean closed, Pipeline pipeline)
+		{
+			this.outline = outline;
+			this.closed = closed;
+			this.pipeline = pipeline;
+		}
+	}
+	
+	/**
+	 * Everything the model derives from a closed outline, from its
+	 * triangulation to the mesh. The model holds it by reference and starts a
+	 * new pipeline when it leaves a state, so a pipeline is only changed while
+	 * its state is the current one.
+	 */
+	private static class Pipeline
+	{
+		//The polygon that was triangulated: the drawn outline or a simplified copy of it
+		private Polygon polygon;
+		private List<DelaunayTriangle> triangles = new ArrayList<DelaunayTriangle>();
+		private boolean pruned = false;
+		private List<DelaunayTriangle> s = new ArrayList<DelaunayTriangle>();
+		private List<DelaunayTriangle> j = new ArrayList<DelaunayTriangle>();
+		private List<DelaunayTriangle> t = new ArrayList<DelaunayTriangle>();
+		private Map<DelaunayTriangle, Integer> triangleTypes = new IdentityHashMap<DelaunayTriangle, Integer>();
+		private Map<TriangulationPoint, Integer> outlineIndices = new IdentityHashMap<TriangulationPoint, Integer>();
+		private Set<DelaunayTriangle> considered = Collections.newSetFromMap(new IdentityHashMap<DelaunayTriangle, Boolean>());
+		private ChordalAxis chordalAxis;
+		private List<DelaunayTriangle> prunedTriangles = new ArrayList<DelaunayTriangle>();
+		private Set<DelaunayTriangle> removedTriangles = Collections.newSetFromMap(new IdentityHashMap<DelaunayTriangle, Boolean>());
+		private ChordalAxis prunedChordalAxis;
+		private List<DelaunayTriangle> subdividedTriangles = new ArrayList<DelaunayTriangle>();
+		private ChordalAxis raisedChordalAxis;
+		private ChordalAxis loweredChordalAxis;
+		
+		private int terminalIndex = 0;
+		private DelaunayTriangle currentTerminal;
+		private DelaunayTriangle currentTriangle;
+		private DTSweepConstraint currentEdge;
+		private BranchPoints pointsToCheck = new BranchPoints();
+		
+		private IndexedMesh mesh;
+		private String meshParameters;
+		//Stages whose results are up to date with the outline
+		private EnumSet<Stage> validStages = EnumSet.noneOf(Stage.class);
+		//Hash of the outline as it was drawn, before it was simplified
+		private String outlineKey;
+		
+		private TriangulationPoint circleCenter;
+		private double circleRadius = 0.0;
 	}
 }
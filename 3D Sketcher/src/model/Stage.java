@@ -0,0 +1,10 @@
+package model;
+
+/**
+ * The stages of the sketch pipeline, in the order in which they depend on each
+ * other: every stage is computed from the result of the stage before it.
+ */
+public enum Stage
+{
+	TRIANGULATION, CHORDAL_AXIS, PRUNED_AXIS, SUBDIVISION, RAISED_AXIS, MESH
+}
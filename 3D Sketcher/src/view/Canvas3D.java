@@ -1,12 +1,12 @@
 package view;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import model.ChordalAxis;
 import model.ChordalAxisPoint;
+import model.IndexedMesh;
 import model.SketchModel;
-import model.Triangle;
+import model.Stage;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.Rectangle;
@@ -24,22 +24,42 @@ import org.lwjgl.util.glu.GLU;
 import org.poly2tri.triangulation.TriangulationPoint;
 import org.poly2tri.triangulation.delaunay.DelaunayTriangle;
 
-import util.DrawShape;
 import control.CanvasListener;
 
 public class Canvas3D extends Composite implements Runnable
 {
-	private static int AXIS_LENGTH = 10;
+	private static int DEFAULT_GRID_EXTENT = 10;
 	private static int TICK_SIZE = 1;
 	private static double TICK_EXTRUSION = 0.2;
+	private static double MARKER_RADIUS = 0.02;
+	private static double CAMERA_DISTANCE = 5.0;
+	private static final Stage[] STAGES = Stage.values();
 
 	private GLCanvas glCanvas;
 	private SketchModel model;
 
 	private Display display;
 	private Camera camera;
+	private MeshBuffer meshBuffer;
+	private MarkerRenderer markers = new MarkerRenderer();
+	private int viewportWidth = 1;
+	private int viewportHeight = 1;
+	private FrameStatistics statistics = new FrameStatistics();
+	private HudText hudText = new HudText();
 
 	private float zoom = 1.0f;
+	private int gridExtent = DEFAULT_GRID_EXTENT;
+
+	//Display lists of the plane and of the axes with the grid
+	private int planeList = 0;
+	private int axesList = 0;
+	private boolean staticSceneValid = false;
+	private int axesVertexCount;
+
+	private boolean redrawScheduled = false;
+	private int frameRateLimit = 0;
+	private boolean continuousRedraw = false;
+	private long lastFrameTime = 0;
 
 	private boolean showOutline = true;
 	private boolean showTriangles = false;
@@ -51,6 +71,7 @@ public class Canvas3D extends Composite implements Runnable
 	private boolean showPruned = false;
 	private boolean showSubdivided = false;
 	private boolean showAxes = true;
+	private boolean showStatistics = false;
 
 	public Canvas3D(Composite parent, int style, SketchModel model)
 	{
@@ -86,6 +107,8 @@ public class Canvas3D extends Composite implements Runnable
 			public void handleEvent(Event event)
 			{
 				Rectangle bounds = glCanvas.getBounds();
+				viewportWidth = Math.max(1, bounds.width);
+				viewportHeight = Math.max(1, bounds.height);
 				float fAspect = (float) bounds.width / (float) bounds.height;
 				glCanvas.setCurrent();
 				try
@@ -101,6 +124,31 @@ public class Canvas3D extends Composite implements Runnable
 				GLU.gluPerspective(45.0f, fAspect, 0.5f, 400.0f);
 				GL11.glMatrixMode(GL11.GL_MODELVIEW);
 				GL11.glLoadIdentity();
+				requestRedraw();
+			}
+		});
+
+		if(MeshBuffer.isSupported())
+			meshBuffer = new MeshBuffer();
+		glCanvas.addListener(SWT.Dispose, new Listener()
+		{
+			@Override
+			public void handleEvent(Event event)
+			{
+				glCanvas.setCurrent();
+				try
+				{
+					GLContext.useContext(glCanvas);
+				} catch (LWJGLException e)
+				{
+					e.printStackTrace();
+					return;
+				}
+				if(meshBuffer != null)
+					meshBuffer.dispose();
+				if(planeList != 0)
+					GL11.glDeleteLists(planeList, 2);
+				hudText.dispose();
 			}
 		});
 
@@ -118,16 +166,58 @@ public class Canvas3D extends Composite implements Runnable
 			@Override
 			public void handleEvent(Event event)
 			{
-				run();
+				requestRedraw();
 			}
 		});
+		requestRedraw();
+	}
+
+	/**
+	 * Schedules the canvas to be drawn once, unless a redraw is already
+	 * scheduled. While redrawing continuously with a frame rate limit, the
+	 * redraw is delayed until the frame time of the previous frame has
+	 * passed. Must be called from the user interface thread.
+	 */
+	public void requestRedraw()
+	{
+		if(redrawScheduled || isDisposed())
+			return;
+		redrawScheduled = true;
+		if(continuousRedraw && frameRateLimit > 0)
+		{
+			long wait = lastFrameTime + 1000 / frameRateLimit - System.currentTimeMillis();
+			if(wait > 0)
+			{
+				display.timerExec((int)wait, this);
+				return;
+			}
+		}
 		display.asyncExec(this);
 	}
 
+	/**
+	 * Sets the maximum number of frames drawn per second while redrawing
+	 * continuously, or 0 for no limit.
+	 */
+	public void setFrameRateLimit(int framesPerSecond)
+	{
+		this.frameRateLimit = Math.max(0, framesPerSecond);
+	}
+
+	/**
+	 * Set while the canvas is redrawn for every mouse move, such as while
+	 * drawing or rotating. Only then is the frame rate limited; a single
+	 * redraw is drawn right away.
+	 */
+	public void setContinuousRedraw(boolean continuousRedraw)
+	{
+		this.continuousRedraw = continuousRedraw;
+	}
+
 	@Override
 	public void run()
 	{
-
+		redrawScheduled = false;
 		if (!glCanvas.isDisposed())
 		{
 			glCanvas.setCurrent();
@@ -139,11 +229,15 @@ public class Canvas3D extends Composite implements Runnable
 				e.printStackTrace();
 			}
 
+			statistics.beginFrame();
 			setCamera();
 			drawScene();
+			if(showStatistics)
+				drawStatistics();
 
 			glCanvas.swapBuffers();
-			display.asyncExec(this);
+			statistics.endFrame();
+			lastFrameTime = System.currentTimeMillis();
 		}
 	}
 
@@ -159,18 +253,31 @@ public class Canvas3D extends Composite implements Runnable
 	{
 		camera.rotateAroundX(x);
 		camera.rotateAroundY(y);
+		requestRedraw();
 	}
 
 	public void zoomIn()
 	{
 		this.zoom = (float) (zoom * 1.2);
 		camera.setZoom(zoom);
+		staticSceneValid = false;
+		requestRedraw();
 	}
 
 	public void zoomOut()
 	{
 		this.zoom = (float) (zoom / 1.2);
 		camera.setZoom(zoom);
+		staticSceneValid = false;
+		requestRedraw();
+	}
+
+	public void resetCamera()
+	{
+		camera.reset();
+		this.zoom = 1.0f;
+		staticSceneValid = false;
+		requestRedraw();
 	}
 
 	private void drawScene()
@@ -178,10 +285,15 @@ public class Canvas3D extends Composite implements Runnable
 		GL11.glEnable(GL11.GL_LINE_SMOOTH);
 		GL11.glHint(GL11.GL_PERSPECTIVE_CORRECTION_HINT, GL11.GL_NICEST);
 
-		
+		if(!staticSceneValid)
+			compileStaticScene();
 		if (showAxes)
-			drawAxes();
-		drawPlane();
+		{
+			GL11.glCallList(axesList);
+			statistics.addDrawCalls(2, axesVertexCount);
+		}
+		GL11.glCallList(planeList);
+		statistics.addDrawCalls(1, 4);
 		if(showMesh)
 		{
 			drawMesh();
@@ -211,27 +323,42 @@ public class Canvas3D extends Composite implements Runnable
 		GL11.glColor3f(.7f, .7f, .7f);
 		GL11.glPolygonMode(GL11.GL_FRONT_AND_BACK, GL11.GL_FILL);
 
-		ArrayList<Triangle> mesh = model.getMesh();
-		for (Triangle triangle : mesh)
+		IndexedMesh mesh = model.getMesh();
+		if(mesh == null)
+			return;
+		if(meshBuffer != null)
 		{
-			drawTriangle(triangle);
+			meshBuffer.draw(mesh);
+			GL11.glPolygonMode(GL11.GL_FRONT_AND_BACK, GL11.GL_LINE);
+			GL11.glColor3f(.2f, .6f, .5f);
+			meshBuffer.draw(mesh);
+			statistics.addDrawCalls(2, 6 * mesh.getTriangleCount());
+			return;
+		}
+
+		//Immediate mode, for contexts without vertex buffers
+		for (int i = 0; i < mesh.getTriangleCount(); i++)
+		{
+			drawTriangle(mesh, i);
 		}
 		
 		GL11.glPolygonMode(GL11.GL_FRONT_AND_BACK, GL11.GL_LINE);
 		GL11.glColor3f(.2f, .6f, .5f);
-		for (Triangle triangle : mesh)
+		for (int i = 0; i < mesh.getTriangleCount(); i++)
 		{
-			drawTriangle(triangle);
+			drawTriangle(mesh, i);
 		}
-		
+		statistics.addDrawCalls(2 * mesh.getTriangleCount(), 6 * mesh.getTriangleCount());
 	}
 	
-	private void drawTriangle(Triangle triangle)
+	private void drawTriangle(IndexedMesh mesh, int triangle)
 	{
 		GL11.glBegin(GL11.GL_TRIANGLE_STRIP);
-		GL11.glVertex3d(triangle.p1.x,triangle.p1.y,triangle.p1.z);
-		GL11.glVertex3d(triangle.p2.x,triangle.p2.y,triangle.p2.z);
-		GL11.glVertex3d(triangle.p3.x,triangle.p3.y,triangle.p3.z);
+		for (int corner = 0; corner < 3; corner++)
+		{
+			int vertex = mesh.getIndex(triangle, corner);
+			GL11.glVertex3f(mesh.getX(vertex), mesh.getY(vertex), mesh.getZ(vertex));
+		}
 		GL11.glEnd();
 	}
 	
@@ -250,6 +377,7 @@ public class Canvas3D extends Composite implements Runnable
 			GL11.glVertex3d(points.get(0).getX(), points.get(0).getY(), 0.0);
 		}
 		GL11.glEnd();
+		statistics.addDrawCalls(1, points.size() + (model.isClosed() ? 1 : 0));
 	}
 	
 	private void drawPruningCircle()
@@ -266,6 +394,7 @@ public class Canvas3D extends Composite implements Runnable
 			DrawShape.circle(center.getX(), center.getY(), 0.0, radius, 50);
 			GL11.glColor3f(.1f, .8f, .8f);
 			DrawShape.line(p1.getX(), p1.getY(), p1.getZ(), p2.getX(), p2.getY(), p2.getZ());
+			statistics.addDrawCalls(DrawShape.SPHERE_DRAW_CALLS + 2, DrawShape.SPHERE_VERTICES + 50 + 2);
 		}
 	}
 	
@@ -273,11 +402,20 @@ public class Canvas3D extends Composite implements Runnable
 	{
 		List<TriangulationPoint> points = model.getPoints();
 		GL11.glColor3d(0.6, 0.2, 0.3);
-		GL11.glLineWidth(2.0f);
-		for (TriangulationPoint point : points)
+		markers.clear();
+		for (int i = 0; i < points.size(); i++)
 		{
-			DrawShape.sphere(point.getX(), point.getY(), 0.0, 0.02);
+			TriangulationPoint point = points.get(i);
+			markers.add(point.getX(), point.getY(), 0.0);
 		}
+		markers.draw(getMarkerSize());
+		statistics.addDrawCalls(1, points.size());
+	}
+
+	//The diameter in pixels of a sphere with the marker radius seen from the camera
+	private float getMarkerSize()
+	{
+		return (float)(MARKER_RADIUS * viewportHeight * zoom / (CAMERA_DISTANCE * Math.tan(Math.toRadians(22.5))));
 	}
 
 	private void drawTriangles()
@@ -310,6 +448,7 @@ public class Canvas3D extends Composite implements Runnable
 						triangle.points[0].getY(), 0.0);
 				GL11.glEnd();
 			}
+			statistics.addDrawCalls(triangles.size(), 4 * triangles.size());
 		}
 	}
 	
@@ -318,6 +457,7 @@ public class Canvas3D extends Composite implements Runnable
 		GL11.glLineWidth(1.0f);
 		GL11.glColor3f(.6f, .6f, .6f);
 		ChordalAxis axis = model.getPrunedChordalAxis();
+		int lines = 0;
 		for (ChordalAxisPoint axisPoint : axis.getPoints())
 		{
 			for (TriangulationPoint outlinePoint : axisPoint.getOutlinePoints())
@@ -327,24 +467,30 @@ public class Canvas3D extends Composite implements Runnable
 				GL11.glVertex3d(outlinePoint.getX(),outlinePoint.getY(), axisPoint.getZ());
 				GL11.glEnd();
 			}
+			lines += axisPoint.getOutlinePoints().size();
 		}
+		statistics.addDrawCalls(lines, 2 * lines);
 	}
 
 	private void drawMidpoints()
 	{
-		if (model.getChordalAxisPoints() == null)
-			return;
-		GL11.glLineWidth(2.0f);
-		GL11.glColor3d(0.6, 0.2, 0.3);
-		List<TriangulationPoint> points;
+		ChordalAxis axis;
 		if(!showPruned)
-			points = model.getChordalAxisPoints();
+			axis = model.getChordalAxis();
 		else
-			points = model.getPrunedChordalAxisPoints();
-		for (TriangulationPoint midpoint : points)
+			axis = model.getPrunedChordalAxis();
+		if (axis == null)
+			return;
+		GL11.glColor3d(0.6, 0.2, 0.3);
+		List<ChordalAxisPoint> points = axis.getPoints();
+		markers.clear();
+		for (int i = 0; i < points.size(); i++)
 		{
-			DrawShape.sphere(midpoint.getX(), midpoint.getY(), 0.0, 0.02);
+			ChordalAxisPoint midpoint = points.get(i);
+			markers.add(midpoint.getX(), midpoint.getY(), 0.0);
 		}
+		markers.draw(getMarkerSize());
+		statistics.addDrawCalls(1, points.size());
 	}
 	
 	private void drawChordalAxis(ChordalAxis axis)
@@ -352,6 +498,7 @@ public class Canvas3D extends Composite implements Runnable
 		GL11.glLineWidth(5.0f);
 		GL11.glColor3f(.3f, .5f, .3f);
 				
+		int lines = 0;
 		for (ChordalAxisPoint point : axis.getPoints())
 		{
 			for (ChordalAxisPoint connection : point.getConnections())
@@ -361,13 +508,16 @@ public class Canvas3D extends Composite implements Runnable
 				GL11.glVertex3d(connection.getX(), connection.getY(), connection.getZ());
 				GL11.glEnd();
 			}
+			lines += point.getConnections().size();
 		}
+		statistics.addDrawCalls(lines, 2 * lines);
 	}
 	
 	private void drawDownwardLines(ChordalAxis axis)
 	{
 		GL11.glLineWidth(1.0f);
 		GL11.glColor3f(.6f, .6f, .6f);
+		int lines = 0;
 		for (ChordalAxisPoint point : axis.getPoints())
 		{
 			for (TriangulationPoint outlinePoint: point.getOutlinePoints())
@@ -377,13 +527,16 @@ public class Canvas3D extends Composite implements Runnable
 				GL11.glVertex3d(outlinePoint.getX(), outlinePoint.getY(), 0.0);
 				GL11.glEnd();
 			}
+			lines += point.getOutlinePoints().size();
 		}
+		statistics.addDrawCalls(lines, 2 * lines);
 	}
 	
 	private void drawUpwardLines(ChordalAxis axis)
 	{
 		GL11.glLineWidth(1.0f);
 		GL11.glColor3f(.6f, .6f, .6f);
+		int lines = 0;
 		for (ChordalAxisPoint point : axis.getPoints())
 		{
 			for (TriangulationPoint outlinePoint: point.getOutlinePoints())
@@ -393,7 +546,9 @@ public class Canvas3D extends Composite implements Runnable
 				GL11.glVertex3d(outlinePoint.getX(), outlinePoint.getY(), 0.0);
 				GL11.glEnd();
 			}
+			lines += point.getOutlinePoints().size();
 		}
+		statistics.addDrawCalls(lines, 2 * lines);
 	}
 	
 	private void drawChordalAxis()
@@ -417,15 +572,33 @@ public class Canvas3D extends Composite implements Runnable
 		}
 	}
 
+	//The plane, axes and grid only change with the zoom and the grid extent
+	private void compileStaticScene()
+	{
+		if(planeList == 0)
+		{
+			planeList = GL11.glGenLists(2);
+			axesList = planeList + 1;
+		}
+		GL11.glNewList(planeList, GL11.GL_COMPILE);
+		drawPlane();
+		GL11.glEndList();
+		GL11.glNewList(axesList, GL11.GL_COMPILE);
+		drawAxes();
+		GL11.glEndList();
+		axesVertexCount = 4 + 16 * (gridExtent / TICK_SIZE - 1);
+		staticSceneValid = true;
+	}
+
 	private void drawPlane()
 	{
 		GL11.glDisable(GL11.GL_LIGHTING);
 		GL11.glBegin(GL11.GL_QUADS);
 		GL11.glColor3d(0.5, 0.5, 0.5);
-		GL11.glVertex3f(-10f, -10f, -0.001f);
-		GL11.glVertex3f(10f, -10f, -0.001f);
-		GL11.glVertex3f(10f, 10f, -0.001f);
-		GL11.glVertex3f(-10f, 10f, -0.001f);
+		GL11.glVertex3f(-gridExtent, -gridExtent, -0.001f);
+		GL11.glVertex3f(gridExtent, -gridExtent, -0.001f);
+		GL11.glVertex3f(gridExtent, gridExtent, -0.001f);
+		GL11.glVertex3f(-gridExtent, gridExtent, -0.001f);
 
 		GL11.glEnd();
 	}
@@ -436,12 +609,12 @@ public class Canvas3D extends Composite implements Runnable
 
 		GL11.glBegin(GL11.GL_LINES);
 		GL11.glColor3d(0.2, 0.2, 0.2);
-		GL11.glVertex3d(-AXIS_LENGTH, 0.0, -0.01 / zoom);
-		GL11.glVertex3d(AXIS_LENGTH, 0.0, -0.01 / zoom);
-		GL11.glVertex3d(0.0, -AXIS_LENGTH, -0.01 / zoom);
-		GL11.glVertex3d(0.0, AXIS_LENGTH, -0.01 / zoom);
+		GL11.glVertex3d(-gridExtent, 0.0, -0.01 / zoom);
+		GL11.glVertex3d(gridExtent, 0.0, -0.01 / zoom);
+		GL11.glVertex3d(0.0, -gridExtent, -0.01 / zoom);
+		GL11.glVertex3d(0.0, gridExtent, -0.01 / zoom);
 
-		int ticks = AXIS_LENGTH / TICK_SIZE;
+		int ticks = gridExtent / TICK_SIZE;
 		for (int i = 1; i < ticks; i++)
 		{
 			GL11.glVertex3d(-i * TICK_SIZE, -TICK_EXTRUSION, -0.01 / zoom);
@@ -465,69 +638,161 @@ public class Canvas3D extends Composite implements Runnable
 		GL11.glLineWidth(0.1f);
 		GL11.glColor3d(0.7, 0.7, 0.7);
 		GL11.glBegin(GL11.GL_LINES);
-		int ticks = AXIS_LENGTH / TICK_SIZE;
+		int ticks = gridExtent / TICK_SIZE;
 		for (int i = 1; i < ticks; i++)
 		{
-			GL11.glVertex3d(-i * TICK_SIZE, -AXIS_LENGTH, -0.01 / zoom);
-			GL11.glVertex3d(-i * TICK_SIZE, AXIS_LENGTH, -0.01 / zoom);
+			GL11.glVertex3d(-i * TICK_SIZE, -gridExtent, -0.01 / zoom);
+			GL11.glVertex3d(-i * TICK_SIZE, gridExtent, -0.01 / zoom);
 			
-			GL11.glVertex3d(i * TICK_SIZE, -AXIS_LENGTH, -0.01 / zoom);
-			GL11.glVertex3d(i * TICK_SIZE, AXIS_LENGTH, -0.01 / zoom);
+			GL11.glVertex3d(i * TICK_SIZE, -gridExtent, -0.01 / zoom);
+			GL11.glVertex3d(i * TICK_SIZE, gridExtent, -0.01 / zoom);
 			
-			GL11.glVertex3d(-AXIS_LENGTH, i * TICK_SIZE, -0.01 / zoom);
-			GL11.glVertex3d(AXIS_LENGTH, i * TICK_SIZE, -0.01 / zoom);
+			GL11.glVertex3d(-gridExtent, i * TICK_SIZE, -0.01 / zoom);
+			GL11.glVertex3d(gridExtent, i * TICK_SIZE, -0.01 / zoom);
 			
-			GL11.glVertex3d(-AXIS_LENGTH, -i * TICK_SIZE, -0.01 / zoom);
-			GL11.glVertex3d(AXIS_LENGTH, -i * TICK_SIZE, -0.01 / zoom);
+			GL11.glVertex3d(-gridExtent, -i * TICK_SIZE, -0.01 / zoom);
+			GL11.glVertex3d(gridExtent, -i * TICK_SIZE, -0.01 / zoom);
 		}
 		GL11.glEnd();
 	}
 
+	private void drawStatistics()
+	{
+		statistics.sortFrameTimes();
+		GL11.glMatrixMode(GL11.GL_PROJECTION);
+		GL11.glPushMatrix();
+		GL11.glLoadIdentity();
+		GL11.glOrtho(0, viewportWidth, 0, viewportHeight, -1, 1);
+		GL11.glMatrixMode(GL11.GL_MODELVIEW);
+		GL11.glPushMatrix();
+		GL11.glLoadIdentity();
+		GL11.glDisable(GL11.GL_DEPTH_TEST);
+		GL11.glColor3f(0.0f, 0.0f, 0.0f);
+
+		int x = 8;
+		int y = viewportHeight - 8 - HudText.LINE_HEIGHT;
+		hudText.clear().append("Frame ms  p50 ").appendMillis(statistics.getPercentile(50))
+				.append("  p95 ").appendMillis(statistics.getPercentile(95))
+				.append("  p99 ").appendMillis(statistics.getPercentile(99));
+		hudText.draw(x, y);
+		y -= HudText.LINE_HEIGHT;
+		hudText.clear().append("Draw calls ").append(statistics.getDrawCalls())
+				.append("  vertices ").append(statistics.getVertices());
+		hudText.draw(x, y);
+		y -= HudText.LINE_HEIGHT;
+
+		ChordalAxis axis = model.getChordalAxis();
+		IndexedMesh mesh = model.getMesh();
+		hudText.clear().append("Outline points ").append(model.getPointCount())
+				.append("  triangles ").append(model.getTriangles().size())
+				.append("  axis points ").append(axis == null ? 0 : axis.getPoints().size())
+				.append("  mesh triangles ").append(mesh == null ? 0 : mesh.getTriangleCount());
+		hudText.draw(x, y);
+		y -= HudText.LINE_HEIGHT;
+
+		//Three stages per line
+		for (int i = 0; i < STAGES.length; i += 3)
+		{
+			hudText.clear();
+			for (int j = i; j < i + 3 && j < STAGES.length; j++)
+			{
+				hudText.append(STAGES[j].name()).append(" ").appendMillis(model.getStageTime(STAGES[j])).append(" ms  ");
+			}
+			hudText.draw(x, y);
+			y -= HudText.LINE_HEIGHT;
+		}
+
+		GL11.glEnable(GL11.GL_DEPTH_TEST);
+		GL11.glPopMatrix();
+		GL11.glMatrixMode(GL11.GL_PROJECTION);
+		GL11.glPopMatrix();
+		GL11.glMatrixMode(GL11.GL_MODELVIEW);
+	}
+
+	/**
+	 * Sets how far the plane, axes and grid extend from the origin.
+	 */
+	public void setGridExtent(int extent)
+	{
+		this.gridExtent = extent;
+		staticSceneValid = false;
+		requestRedraw();
+	}
+
+	public int getGridExtent()
+	{
+		return gridExtent;
+	}
+
 	public void showOutline(boolean show)
 	{
 		this.showOutline = show;
+		requestRedraw();
 	}
 	
 	public void showAxis(boolean show)
 	{
 		this.showAxes = show;
+		requestRedraw();
 	}
 
 	public void showTriangles(boolean show)
 	{
 		this.showTriangles = show;
+		requestRedraw();
 	}
 
 	public void showMidpoints(boolean show)
 	{
 		this.showMidpoints = show;
+		requestRedraw();
 	}
 
 	public void showChordalAxis(boolean show)
 	{
 		this.showChordalAxis = show;
+		requestRedraw();
 	}
 	
 	public void showPruned(boolean show)
 	{
 		this.showPruned = show;
 		this.showSubdivided = !show;
+		requestRedraw();
 	}
 	
 	public void showRaisedAxis(boolean show)
 	{
 		this.showRaisedAxis = show;
+		requestRedraw();
 	}
 	
 	public void showMesh(boolean show)
 	{
 		this.showMesh = show;
+		requestRedraw();
 	}
 	
 	public void showSubdivided(boolean show)
 	{
 		this.showPruned = !show;
 		this.showSubdivided = show;
+		requestRedraw();
+	}
+
+	/**
+	 * Shows frame times, draw calls, the sizes of the pipeline results and
+	 * how long the pipeline stages took on top of the scene.
+	 */
+	public void showStatistics(boolean show)
+	{
+		this.showStatistics = show;
+		requestRedraw();
+	}
+
+	public boolean statisticsShown()
+	{
+		return showStatistics;
 	}
 
 	public boolean axesShown()
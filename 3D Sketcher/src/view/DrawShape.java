@@ -1,16 +1,22 @@
-package util;
+package view;
 
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.util.glu.Sphere;
 
 public class DrawShape
 {
+	private static final Sphere SPHERE = new Sphere();
+	private static final int SPHERE_SLICES = 16;
+	private static final int SPHERE_STACKS = 16;
+	//A sphere is drawn as a fan at each pole and a strip for each stack in between
+	public static final int SPHERE_DRAW_CALLS = SPHERE_STACKS;
+	public static final int SPHERE_VERTICES = 2 * (SPHERE_SLICES + 2) + (SPHERE_STACKS - 2) * 2 * (SPHERE_SLICES + 1);
+
 	public static void sphere(double x, double y, double z, double size) 
 	{
 	     GL11.glPushMatrix();
 	     GL11.glTranslated(x, y, z);
-	     Sphere s = new Sphere();
-	     s.draw((float)size, 16, 16);
+	     SPHERE.draw((float)size, SPHERE_SLICES, SPHERE_STACKS);
 	     GL11.glPopMatrix();
 	}
 	
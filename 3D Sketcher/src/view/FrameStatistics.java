@@ -0,0 +1,78 @@
+package view;
+
+import java.util.Arrays;
+
+/**
+ * Collects the time it takes to draw the last frames and the number of draw
+ * calls and vertices of the last frame. All buffers are allocated up front,
+ * so recording a frame allocates nothing.
+ */
+class FrameStatistics
+{
+	private static final int FRAME_COUNT = 256;
+
+	//Ring buffer of the last frame times in nanoseconds
+	private long[] frameTimes = new long[FRAME_COUNT];
+	private long[] sortedTimes = new long[FRAME_COUNT];
+	private int nextFrame = 0;
+	private int frameCount = 0;
+	private long frameStart;
+
+	private int drawCalls;
+	private int vertices;
+	private int lastDrawCalls;
+	private int lastVertices;
+
+	public void beginFrame()
+	{
+		frameStart = System.nanoTime();
+		drawCalls = 0;
+		vertices = 0;
+	}
+
+	public void endFrame()
+	{
+		frameTimes[nextFrame] = System.nanoTime() - frameStart;
+		nextFrame = (nextFrame + 1) % FRAME_COUNT;
+		frameCount = Math.min(frameCount + 1, FRAME_COUNT);
+		lastDrawCalls = drawCalls;
+		lastVertices = vertices;
+	}
+
+	public void addDrawCalls(int calls, int vertices)
+	{
+		this.drawCalls += calls;
+		this.vertices += vertices;
+	}
+
+	/**
+	 * Sorts the recorded frame times, for the percentiles to be read.
+	 */
+	public void sortFrameTimes()
+	{
+		System.arraycopy(frameTimes, 0, sortedTimes, 0, frameCount);
+		Arrays.sort(sortedTimes, 0, frameCount);
+	}
+
+	/**
+	 * @return the frame time in nanoseconds that the given percentage of the
+	 *         recorded frames did not exceed, as of the last sort
+	 */
+	public long getPercentile(int percentage)
+	{
+		if(frameCount == 0)
+			return 0;
+		int rank = (percentage * frameCount + 99) / 100;
+		return sortedTimes[Math.max(0, rank - 1)];
+	}
+
+	public int getDrawCalls()
+	{
+		return lastDrawCalls;
+	}
+
+	public int getVertices()
+	{
+		return lastVertices;
+	}
+}
@@ -0,0 +1,190 @@
+package view;
+
+import java.nio.ByteBuffer;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+
+/**
+ * A line of text drawn with a built-in 5x7 bitmap font. Every character is a
+ * display list, so a line is drawn with one call. The line is built in a
+ * buffer that is reused, and numbers are written into it digit by digit, so
+ * building and drawing a line allocates nothing. Lower case letters are shown
+ * as capitals.
+ */
+class HudText
+{
+	private static final int FIRST_CHARACTER = 32;
+	private static final int LAST_CHARACTER = 95;
+	private static final int GLYPH_WIDTH = 5;
+	private static final int GLYPH_HEIGHT = 7;
+	private static final int ADVANCE = GLYPH_WIDTH + 1;
+	public static final int LINE_HEIGHT = GLYPH_HEIGHT + 4;
+
+	private static final String CHARACTERS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ:./-%()=,";
+	//Rows from top to bottom
+	private static final String[] GLYPHS = {
+		".###. #...# #..## #.#.# ##..# #...# .###.",
+		"..#.. .##.. ..#.. ..#.. ..#.. ..#.. .###.",
+		".###. #...# ....# ...#. ..#.. .#... #####",
+		"##### ...#. ..#.. ...#. ....# #...# .###.",
+		"...#. ..##. .#.#. #..#. ##### ...#. ...#.",
+		"##### #.... ####. ....# ....# #...# .###.",
+		"..##. .#... #.... ####. #...# #...# .###.",
+		"##### ....# ...#. ..#.. .#... .#... .#...",
+		".###. #...# #...# .###. #...# #...# .###.",
+		".###. #...# #...# .#### ....# ...#. .##..",
+		".###. #...# #...# ##### #...# #...# #...#",
+		"####. #...# #...# ####. #...# #...# ####.",
+		".###. #...# #.... #.... #.... #...# .###.",
+		"###.. #..#. #...# #...# #...# #..#. ###..",
+		"##### #.... #.... ####. #.... #.... #####",
+		"##### #.... #.... ####. #.... #.... #....",
+		".###. #...# #.... #.### #...# #...# .####",
+		"#...# #...# #...# ##### #...# #...# #...#",
+		".###. ..#.. ..#.. ..#.. ..#.. ..#.. .###.",
+		"..### ...#. ...#. ...#. ...#. #..#. .##..",
+		"#...# #..#. #.#.. ##... #.#.. #..#. #...#",
+		"#.... #.... #.... #.... #.... #.... #####",
+		"#...# ##.## #.#.# #.#.# #...# #...# #...#",
+		"#...# #...# ##..# #.#.# #..## #...# #...#",
+		".###. #...# #...# #...# #...# #...# .###.",
+		"####. #...# #...# ####. #.... #.... #....",
+		".###. #...# #...# #...# #.#.# #..#. .##.#",
+		"####. #...# #...# ####. #.#.. #..#. #...#",
+		".#### #.... #.... .###. ....# ....# ####.",
+		"##### ..#.. ..#.. ..#.. ..#.. ..#.. ..#..",
+		"#...# #...# #...# #...# #...# #...# .###.",
+		"#...# #...# #...# #...# #...# .#.#. ..#..",
+		"#...# #...# #...# #.#.# #.#.# #.#.# .#.#.",
+		"#...# #...# .#.#. ..#.. .#.#. #...# #...#",
+		"#...# #...# .#.#. ..#.. ..#.. ..#.. ..#..",
+		"##### ....# ...#. ..#.. .#... #.... #####",
+		"..... .##.. .##.. ..... .##.. .##.. .....",
+		"..... ..... ..... ..... ..... .##.. .##..",
+		"..... ....# ...#. ..#.. .#... #.... .....",
+		"..... ..... ..... ##### ..... ..... .....",
+		"##... ##..# ...#. ..#.. .#... #..## ...##",
+		"...#. ..#.. .#... .#... .#... ..#.. ...#.",
+		".#... ..#.. ...#. ...#. ...#. ..#.. .#...",
+		"..... ..... ##### ..... ##### ..... .....",
+		"..... ..... ..... ..... .##.. ..#.. .#...",
+	};
+
+	private int listBase = 0;
+	private ByteBuffer line = BufferUtils.createByteBuffer(128);
+
+	/**
+	 * Starts a new line.
+	 */
+	public HudText clear()
+	{
+		line.clear();
+		return this;
+	}
+
+	public HudText append(String text)
+	{
+		for (int i = 0; i < text.length(); i++)
+		{
+			append(text.charAt(i));
+		}
+		return this;
+	}
+
+	public HudText append(char c)
+	{
+		if(!line.hasRemaining())
+			return this;
+		if(c >= 'a' && c <= 'z')
+			c = Character.toUpperCase(c);
+		if(c < FIRST_CHARACTER || c > LAST_CHARACTER)
+			c = ' ';
+		line.put((byte)c);
+		return this;
+	}
+
+	public HudText append(long number)
+	{
+		if(number < 0)
+		{
+			append('-');
+			number = -number;
+		}
+		long divisor = 1;
+		while(divisor <= number / 10)
+		{
+			divisor *= 10;
+		}
+		for (; divisor > 0; divisor /= 10)
+		{
+			append((char)('0' + number / divisor % 10));
+		}
+		return this;
+	}
+
+	/**
+	 * Appends a duration in nanoseconds as milliseconds with two decimals.
+	 */
+	public HudText appendMillis(long nanoseconds)
+	{
+		long hundredths = (nanoseconds + 5000) / 10000;
+		append(hundredths / 100).append('.');
+		append((char)('0' + hundredths / 10 % 10)).append((char)('0' + hundredths % 10));
+		return this;
+	}
+
+	/**
+	 * Draws the line in the current color, with its lower left corner at the
+	 * given position in window coordinates.
+	 */
+	public void draw(int x, int y)
+	{
+		if(listBase == 0)
+			compileFont();
+		GL11.glRasterPos2i(x, y);
+		GL11.glListBase(listBase - FIRST_CHARACTER);
+		line.flip();
+		GL11.glCallLists(line);
+		line.position(line.limit());
+		line.limit(line.capacity());
+	}
+
+	private void compileFont()
+	{
+		listBase = GL11.glGenLists(LAST_CHARACTER - FIRST_CHARACTER + 1);
+		ByteBuffer bitmap = BufferUtils.createByteBuffer(GLYPH_HEIGHT);
+		GL11.glPushClientAttrib(GL11.GL_CLIENT_PIXEL_STORE_BIT);
+		GL11.glPixelStorei(GL11.GL_UNPACK_ALIGNMENT, 1);
+		for (int c = FIRST_CHARACTER; c <= LAST_CHARACTER; c++)
+		{
+			int glyph = CHARACTERS.indexOf(c);
+			bitmap.clear();
+			for (int row = GLYPH_HEIGHT - 1; row >= 0; row--)
+			{
+				int bits = 0;
+				for (int column = 0; column < GLYPH_WIDTH && glyph >= 0; column++)
+				{
+					if(GLYPHS[glyph].charAt(row * (GLYPH_WIDTH + 1) + column) == '#')
+						bits |= 0x80 >> column;
+				}
+				bitmap.put((byte)bits);
+			}
+			bitmap.flip();
+			GL11.glNewList(listBase + c - FIRST_CHARACTER, GL11.GL_COMPILE);
+			GL11.glBitmap(GLYPH_WIDTH, GLYPH_HEIGHT, 0, 0, ADVANCE, 0, bitmap);
+			GL11.glEndList();
+		}
+		GL11.glPopClientAttrib();
+	}
+
+	/**
+	 * Frees the font; the context it was created in must be current.
+	 */
+	public void dispose()
+	{
+		if(listBase != 0)
+			GL11.glDeleteLists(listBase, LAST_CHARACTER - FIRST_CHARACTER + 1);
+		listBase = 0;
+	}
+}
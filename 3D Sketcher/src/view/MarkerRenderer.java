@@ -0,0 +1,64 @@
+package view;
+
+import java.nio.FloatBuffer;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+
+/**
+ * Draws a batch of point markers as round, screen-aligned points with a single
+ * draw call. The positions are collected in a buffer that is kept between
+ * frames and only grows when a batch does not fit.
+ */
+class MarkerRenderer
+{
+	private static final int INITIAL_CAPACITY = 256;
+
+	private FloatBuffer positions = BufferUtils.createFloatBuffer(3 * INITIAL_CAPACITY);
+
+	/**
+	 * Starts a new batch of markers.
+	 */
+	public void clear()
+	{
+		positions.clear();
+	}
+
+	public void add(double x, double y, double z)
+	{
+		if(positions.remaining() < 3)
+			grow();
+		positions.put((float)x).put((float)y).put((float)z);
+	}
+
+	private void grow()
+	{
+		FloatBuffer larger = BufferUtils.createFloatBuffer(2 * positions.capacity());
+		positions.flip();
+		larger.put(positions);
+		positions = larger;
+	}
+
+	/**
+	 * Draws the markers of the batch in the current color.
+	 *
+	 * @param size the diameter of a marker in pixels
+	 */
+	public void draw(float size)
+	{
+		int count = positions.position() / 3;
+		if(count == 0)
+			return;
+		positions.flip();
+		GL11.glPushAttrib(GL11.GL_POINT_BIT | GL11.GL_COLOR_BUFFER_BIT);
+		GL11.glEnable(GL11.GL_POINT_SMOOTH);
+		GL11.glEnable(GL11.GL_BLEND);
+		GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+		GL11.glPointSize(size);
+		GL11.glEnableClientState(GL11.GL_VERTEX_ARRAY);
+		GL11.glVertexPointer(3, 0, positions);
+		GL11.glDrawArrays(GL11.GL_POINTS, 0, count);
+		GL11.glDisableClientState(GL11.GL_VERTEX_ARRAY);
+		GL11.glPopAttrib();
+	}
+}
@@ -0,0 +1,146 @@
+package view;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import model.IndexedMesh;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.ContextCapabilities;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GLContext;
+
+/**
+ * Keeps a mesh in a vertex buffer and an index buffer on the graphics card, so
+ * it can be drawn with a single call. The mesh is only uploaded again when a
+ * different mesh is drawn. Where vertex array objects are available the vertex
+ * layout is stored in one as well.
+ */
+class MeshBuffer
+{
+	private IndexedMesh mesh;
+	private int vertexBuffer = 0;
+	private int indexBuffer = 0;
+	private int vertexArray = 0;
+	private int indexCount = 0;
+
+	//Reused to copy meshes that are not in direct memory yet
+	private FloatBuffer vertices = BufferUtils.createFloatBuffer(0);
+	private IntBuffer indices = BufferUtils.createIntBuffer(0);
+
+	/**
+	 * @return whether the current context supports vertex buffers
+	 */
+	public static boolean isSupported()
+	{
+		return GLContext.getCapabilities().OpenGL15;
+	}
+
+	/**
+	 * Draws the mesh with the current color and polygon mode, uploading it
+	 * first if it differs from the mesh drawn last.
+	 */
+	public void draw(IndexedMesh mesh)
+	{
+		if(mesh != this.mesh)
+			upload(mesh);
+		if(indexCount == 0)
+			return;
+		if(vertexArray != 0)
+		{
+			GL30.glBindVertexArray(vertexArray);
+			GL11.glDrawElements(GL11.GL_TRIANGLES, indexCount, GL11.GL_UNSIGNED_INT, 0L);
+			GL30.glBindVertexArray(0);
+		}
+		else
+		{
+			bind();
+			GL11.glDrawElements(GL11.GL_TRIANGLES, indexCount, GL11.GL_UNSIGNED_INT, 0L);
+			unbind();
+		}
+	}
+
+	private void upload(IndexedMesh mesh)
+	{
+		this.mesh = mesh;
+		if(vertexBuffer == 0)
+			create();
+		GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vertexBuffer);
+		GL15.glBufferData(GL15.GL_ARRAY_BUFFER, toDirect(mesh.getVertices()), GL15.GL_STATIC_DRAW);
+		GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+		GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, indexBuffer);
+		GL15.glBufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, toDirect(mesh.getIndices()), GL15.GL_STATIC_DRAW);
+		GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
+		indexCount = 3 * mesh.getTriangleCount();
+	}
+
+	private void create()
+	{
+		vertexBuffer = GL15.glGenBuffers();
+		indexBuffer = GL15.glGenBuffers();
+		ContextCapabilities capabilities = GLContext.getCapabilities();
+		if(capabilities.OpenGL30 || capabilities.GL_ARB_vertex_array_object)
+		{
+			vertexArray = GL30.glGenVertexArrays();
+			GL30.glBindVertexArray(vertexArray);
+			bind();
+			GL30.glBindVertexArray(0);
+			unbind();
+		}
+	}
+
+	private void bind()
+	{
+		GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vertexBuffer);
+		GL11.glEnableClientState(GL11.GL_VERTEX_ARRAY);
+		GL11.glVertexPointer(3, GL11.GL_FLOAT, 0, 0L);
+		GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, indexBuffer);
+	}
+
+	private void unbind()
+	{
+		GL11.glDisableClientState(GL11.GL_VERTEX_ARRAY);
+		GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+		GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
+	}
+
+	private FloatBuffer toDirect(FloatBuffer buffer)
+	{
+		if(buffer.isDirect())
+			return buffer;
+		if(vertices.capacity() < buffer.remaining())
+			vertices = BufferUtils.createFloatBuffer(buffer.remaining());
+		vertices.clear();
+		vertices.put(buffer).flip();
+		return vertices;
+	}
+
+	private IntBuffer toDirect(IntBuffer buffer)
+	{
+		if(buffer.isDirect())
+			return buffer;
+		if(indices.capacity() < buffer.remaining())
+			indices = BufferUtils.createIntBuffer(buffer.remaining());
+		indices.clear();
+		indices.put(buffer).flip();
+		return indices;
+	}
+
+	/**
+	 * Frees the buffers; the context they were created in must be current.
+	 */
+	public void dispose()
+	{
+		if(vertexArray != 0)
+			GL30.glDeleteVertexArrays(vertexArray);
+		if(vertexBuffer != 0)
+		{
+			GL15.glDeleteBuffers(vertexBuffer);
+			GL15.glDeleteBuffers(indexBuffer);
+		}
+		vertexArray = vertexBuffer = indexBuffer = indexCount = 0;
+		mesh = null;
+	}
+}
@@ -3,9 +3,12 @@ package view;
 import model.SketchModel;
 
 import org.eclipse.swt.SWT;
-import org.eclipse.swt.events.SelectionListener;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
 
 import control.ButtonListener;
 
@@ -14,11 +17,12 @@ public class SketchWindow extends Composite
 {
 	private static final int DEFAULT_WIDTH = 810;
 	private static final int DEFAULT_HEIGHT = 640;
+	private static final int MAX_FRAME_RATE = 60;
 	
 	private Canvas3D canvas;
 	private SketchModel model;
 	
-	private Button clear, outline, triangles, midpoints, chordal, pruneStep, pruneAll, pruned, subdivide, raised, mesh, axes, resetCamera, resetPruning;
+	private Button clear, outline, triangles, midpoints, chordal, pruneStep, pruneAll, pruned, subdivide, raised, mesh, axes, resetCamera, resetPruning, export, undo, redo, statistics, simplify;
 	
 	public SketchWindow(Composite parent, int style)
 	{
@@ -31,9 +35,14 @@ public class SketchWindow extends Composite
 	private void createComponents()
 	{
 		model = new SketchModel();
+		model.setIncrementalTriangulation(true);
+		model.setParallelPruning(true);
+		model.setParallelMeshGeneration(true);
 		canvas = new Canvas3D(this, SWT.BORDER | SWT.DOUBLE_BUFFERED, model);
 		canvas.setVisible(true);
-		SelectionListener buttonListener = new ButtonListener(model, canvas, this);
+		//Only applies while the mouse drags, see CanvasListener
+		canvas.setFrameRateLimit(MAX_FRAME_RATE);
+		final ButtonListener buttonListener = new ButtonListener(model, canvas, this);
 						
 		clear = new Button(this, SWT.NONE);
 		clear.setText("Clear");
@@ -90,6 +99,50 @@ public class SketchWindow extends Composite
 		resetPruning = new Button(this, SWT.NONE);
 		resetPruning.setText("Reset Pruning");
 		resetPruning.addSelectionListener(buttonListener);
+		
+		export = new Button(this, SWT.NONE);
+		export.setText("Export");
+		export.addSelectionListener(buttonListener);
+		
+		undo = new Button(this, SWT.NONE);
+		undo.setText("Undo");
+		undo.addSelectionListener(buttonListener);
+		
+		redo = new Button(this, SWT.NONE);
+		redo.setText("Redo");
+		redo.addSelectionListener(buttonListener);
+		
+		statistics = new Button(this, SWT.NONE);
+		statistics.setText("Statistics");
+		statistics.addSelectionListener(buttonListener);
+		
+		simplify = new Button(this, SWT.NONE);
+		simplify.setText("Simplify");
+		simplify.addSelectionListener(buttonListener);
+		
+		//Ctrl+Z and Ctrl+Y work whichever control has the focus
+		final Listener shortcuts = new Listener()
+		{
+			@Override
+			public void handleEvent(Event e)
+			{
+				if((e.stateMask & SWT.MOD1) == 0)
+					return;
+				if(e.keyCode == 'z')
+					buttonListener.undo();
+				else if(e.keyCode == 'y')
+					buttonListener.redo();
+			}
+		};
+		getDisplay().addFilter(SWT.KeyDown, shortcuts);
+		addDisposeListener(new DisposeListener()
+		{
+			@Override
+			public void widgetDisposed(DisposeEvent e)
+			{
+				getDisplay().removeFilter(SWT.KeyDown, shortcuts);
+			}
+		});
 	}
 	
 	private void resizeComponents()
@@ -113,6 +166,11 @@ public class SketchWindow extends Composite
 		resetCamera.setBounds(85, height-50, 80, 40);
 		clear.setBounds(165, height-50, 80, 40);
 		resetPruning.setBounds(245, height-50, 80, 40);
+		export.setBounds(325, height-50, 80, 40);
+		undo.setBounds(405, height-50, 80, 40);
+		redo.setBounds(485, height-50, 80, 40);
+		statistics.setBounds(565, height-50, 80, 40);
+		simplify.setBounds(645, height-50, 80, 40);
 		
 	}
 	
@@ -122,6 +180,17 @@ public class SketchWindow extends Composite
 		pruneAll.setEnabled(true);
 	}
 	
+	public void updatePruningButtons()
+	{
+		pruneStep.setEnabled(!model.isPruned());
+		pruneAll.setEnabled(!model.isPruned());
+	}
+	
+	public void setGridExtent(int extent)
+	{
+		canvas.setGridExtent(extent);
+	}
+	
 	public void setShowPrunedButton(boolean pruned)
 	{
 		if(pruned)
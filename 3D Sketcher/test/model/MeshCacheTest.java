@@ -0,0 +1,40 @@
+package model;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MeshCacheTest
+{
+	//A header of 12 bytes, three vertices and three indices
+	private static final long MESH_SIZE = 12 + 3 * 12 + 3 * 4;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static IndexedMesh createTriangle()
+	{
+		return new IndexedMesh(new float[] {0, 0, 0, 1, 0, 0, 0, 1, 0}, new int[] {0, 1, 2});
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() throws IOException
+	{
+		MeshCache cache = new MeshCache(folder.newFolder("cache"), 3 * MESH_SIZE);
+		cache.put("first", "", createTriangle());
+		cache.put("second", "", createTriangle());
+		cache.put("third", "", createTriangle());
+		assertNotNull(cache.get("first", ""));
+		cache.put("fourth", "", createTriangle());
+
+		assertNotNull(cache.get("first", ""));
+		assertNull(cache.get("second", ""));
+		assertNotNull(cache.get("third", ""));
+		assertNotNull(cache.get("fourth", ""));
+	}
+}
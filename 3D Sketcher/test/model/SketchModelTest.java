@@ -0,0 +1,78 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.poly2tri.geometry.polygon.PolygonPoint;
+
+public class SketchModelTest
+{
+	private static final int POINTS = 400;
+
+	//A star with five arms, drawn counter clockwise
+	private static SketchModel createStar(double tolerance)
+	{
+		SketchModel model = new SketchModel();
+		model.setOutlineSimplification(tolerance, 0);
+		for (int i = 0; i < POINTS; i++)
+		{
+			double angle = 2 * Math.PI * i / POINTS;
+			double radius = 1.0 + 0.6 * Math.cos(5 * angle);
+			model.addPoint(new PolygonPoint(radius * Math.cos(angle), radius * Math.sin(angle)));
+		}
+		model.close();
+		return model;
+	}
+
+	private static void assertSameResult(SketchModel expected, SketchModel actual)
+	{
+		assertEquals(expected.getTriangles().size(), actual.getTriangles().size());
+		assertEquals(expected.getChordalAxis().getPoints().size(), actual.getChordalAxis().getPoints().size());
+		assertEquals(expected.getMesh().getTriangleCount(), actual.getMesh().getTriangleCount());
+	}
+
+	@Test
+	public void retriangulateWithOtherSimplification()
+	{
+		SketchModel model = createStar(0.01);
+		model.triangulate();
+		model.createMesh(5);
+		model.setOutlineSimplification(0.02, 0);
+		model.triangulate();
+		model.createMesh(5);
+
+		SketchModel expected = createStar(0.02);
+		expected.triangulate();
+		expected.createMesh(5);
+		assertSameResult(expected, model);
+	}
+
+	@Test
+	public void retriangulateWithSameSimplification()
+	{
+		SketchModel model = createStar(0.01);
+		model.triangulate();
+		model.createMesh(5);
+		model.setOutlineSimplification(0.02, 0);
+		model.triangulate();
+		model.setOutlineSimplification(0.01, 0);
+		model.triangulate();
+		model.createMesh(5);
+
+		SketchModel expected = createStar(0.01);
+		expected.triangulate();
+		expected.createMesh(5);
+		assertSameResult(expected, model);
+	}
+
+	@Test
+	public void retriangulateWithoutSimplification()
+	{
+		SketchModel model = createStar(0.02);
+		model.triangulate();
+		model.setOutlineSimplification(0, 0);
+		model.triangulate();
+		assertEquals(POINTS, model.getPointCount());
+		assertEquals(POINTS - 2, model.getTriangles().size());
+	}
+}